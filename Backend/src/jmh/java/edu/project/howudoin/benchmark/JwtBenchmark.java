@@ -0,0 +1,63 @@
+package edu.project.howudoin.benchmark;
+
+import edu.project.howudoin.security.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Token work done on every request: issuing at login, verifying in the request filter
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+    private static final String EMAIL = "user@example.com";
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    // with room for one entry, alternating between two tokens misses the cache on every call
+    private JwtUtil uncachedJwtUtil;
+    private String[] uncachedTokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(10_000, new SimpleMeterRegistry());
+        token = jwtUtil.generateToken(EMAIL);
+        jwtUtil.verify(token);
+
+        uncachedJwtUtil = new JwtUtil(1, new SimpleMeterRegistry());
+        uncachedTokens = new String[] {
+                uncachedJwtUtil.generateToken(EMAIL),
+                uncachedJwtUtil.generateToken("other@example.com")
+        };
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(EMAIL);
+    }
+
+    @Benchmark
+    public String extractEmail() {
+        return jwtUtil.extractEmail(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token, EMAIL);
+    }
+
+    @Benchmark
+    public String extractEmailUncached() {
+        next ^= 1;
+        return uncachedJwtUtil.extractEmail(uncachedTokens[next]);
+    }
+}
@@ -0,0 +1,92 @@
+package edu.project.howudoin.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.project.howudoin.configuration.JacksonConfig;
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.service.MessageService;
+import edu.project.howudoin.utils.APIResponse;
+import edu.project.howudoin.utils.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Response bodies as the controllers build them, written by an ObjectMapper configured like the application's
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+    // default and maximum page size, and the number of groups / members in the group payloads
+    @Param({"50", "200"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private APIResponse<List<Message>> messagePage;
+    private APIResponse<List<Map<String, Object>>> groupList;
+    private APIResponse<Map<String, Object>> groupDetails;
+
+    @Setup
+    public void setUp() {
+        // Spring Boot writes dates as ISO strings
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        new JacksonConfig().longsAsStrings().customize(builder);
+        objectMapper = builder.build();
+
+        IdGenerator idGenerator = new IdGenerator(0);
+        List<Message> messages = new ArrayList<>();
+        List<Map<String, Object>> groups = new ArrayList<>();
+        List<String> members = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String conversationId = MessageService.conversationId("alice", "bob");
+            messages.add(new Message(idGenerator.nextId(), i % 2 == 0 ? "alice" : "bob", i % 2 == 0 ? "bob" : "alice",
+                    "message number " + i + " of a conversation between two friends", conversationId,
+                    List.of("alice", "bob"), LocalDateTime.now()));
+
+            Map<String, Object> group = new HashMap<>();
+            group.put("id", idGenerator.nextId());
+            group.put("name", "group " + i);
+            groups.add(group);
+
+            members.add("member" + i);
+        }
+        messagePage = new APIResponse<>(1, "Messages retrieved successfully!", messages);
+        groupList = new APIResponse<>(1, "Groups retrieved successfully!", groups);
+
+        Map<String, Object> details = new HashMap<>();
+        details.put("id", idGenerator.nextId());
+        details.put("name", "group");
+        details.put("createdTime", LocalDateTime.now());
+        details.put("members", members);
+        groupDetails = new APIResponse<>(1, "Group details retrieved successfully!", details);
+    }
+
+    @Benchmark
+    public byte[] messagePage() throws Exception {
+        return objectMapper.writeValueAsBytes(messagePage);
+    }
+
+    @Benchmark
+    public byte[] groupList() throws Exception {
+        return objectMapper.writeValueAsBytes(groupList);
+    }
+
+    @Benchmark
+    public byte[] groupDetails() throws Exception {
+        return objectMapper.writeValueAsBytes(groupDetails);
+    }
+}
@@ -0,0 +1,130 @@
+package edu.project.howudoin.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.project.howudoin.configuration.JacksonConfig;
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.service.MessageService;
+import edu.project.howudoin.utils.APIResponse;
+import edu.project.howudoin.utils.IdGenerator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// JSON against the binary formats of WebConfig for a 10k message page: encoding and decoding time per page,
+// and the payload sizes (raw and gzipped, as sent with server.compression) as the encode:payloadBytes and
+// encode:gzippedBytes counters of the JMH results
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WireFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"10000"})
+    private int messages;
+
+    private ObjectMapper objectMapper;
+    private JavaType pageType;
+    private APIResponse<List<Message>> page;
+    private byte[] encoded;
+    private int encodedGzipped;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            default -> {
+                Jackson2ObjectMapperBuilder json = Jackson2ObjectMapperBuilder.json();
+                new JacksonConfig().longsAsStrings().customize(json);
+                yield json;
+            }
+        };
+        objectMapper = builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        pageType = objectMapper.getTypeFactory().constructParametricType(APIResponse.class,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, Message.class));
+
+        IdGenerator idGenerator = new IdGenerator(0);
+        String conversationId = MessageService.conversationId("alice", "bob");
+        List<Message> history = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            boolean fromAlice = i % 2 == 0;
+            history.add(new Message(idGenerator.nextId(), fromAlice ? "alice" : "bob", fromAlice ? "bob" : "alice",
+                    "message number " + i + " of a long conversation", conversationId, List.of("alice", "bob"),
+                    LocalDateTime.now()));
+        }
+        page = new APIResponse<>(1, "Messages retrieved successfully!", history);
+        encoded = objectMapper.writeValueAsBytes(page);
+        encodedGzipped = gzipped(encoded);
+    }
+
+    // Event counters are zeroed before each iteration and summed over the measurement iterations, so the sizes
+    // are set during the first one only and the result is the size of one page (per fork, fork = 1 in build.gradle)
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+
+        public long payloadBytes;
+        public long gzippedBytes;
+
+        private long pageBytes;
+        private long pageGzippedBytes;
+        private boolean reported;
+        private boolean report;
+
+        @Setup(Level.Iteration)
+        public void nextIteration(IterationParams iteration, WireFormatBenchmark benchmark) {
+            pageBytes = benchmark.encoded.length;
+            pageGzippedBytes = benchmark.encodedGzipped;
+            report = !reported && iteration.getType() == IterationType.MEASUREMENT;
+            reported |= report;
+        }
+
+        void record() {
+            if (report) {
+                payloadBytes = pageBytes;
+                gzippedBytes = pageGzippedBytes;
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] encode(PayloadSize size) throws IOException {
+        size.record();
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return objectMapper.readValue(encoded, pageType);
+    }
+
+    private static int gzipped(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.size();
+    }
+}
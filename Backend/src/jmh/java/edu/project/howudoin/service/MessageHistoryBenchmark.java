@@ -0,0 +1,65 @@
+package edu.project.howudoin.service;
+
+import edu.project.howudoin.model.GroupMessageBucket;
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.utils.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// In-memory work left on the history read paths: direct conversations are filtered by an index in MongoDB,
+// group history is filtered and cut to a page in the service, one time bucket at a time
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageHistoryBenchmark {
+
+    // messages in one group bucket (one hour of a busy group at the upper end)
+    @Param({"100", "1000", "10000"})
+    private int bucketSize;
+
+    private GroupMessageBucket bucket;
+    private long middleId;
+
+    @Setup
+    public void setUp() {
+        IdGenerator idGenerator = new IdGenerator(0);
+        List<Message> messages = new ArrayList<>(bucketSize);
+        for (int i = 0; i < bucketSize; i++) {
+            String sender = "member" + (i % 20);
+            messages.add(new Message(idGenerator.nextId(), sender, "group", "message " + i, null, null, LocalDateTime.now()));
+        }
+        bucket = new GroupMessageBucket("1:0", 1L, 0L, bucketSize, messages);
+        middleId = messages.get(bucketSize / 2).getId();
+    }
+
+    @Benchmark
+    public List<Message> latestPage() {
+        return GroupService.page(GroupService.matching(bucket, null, null), false, MessageService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Message> pageBefore() {
+        return GroupService.page(GroupService.matching(bucket, middleId, null), false, MessageService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Message> pageAfter() {
+        return GroupService.page(GroupService.matching(bucket, null, middleId), true, MessageService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public String conversationId() {
+        return MessageService.conversationId("member7", "member12");
+    }
+}
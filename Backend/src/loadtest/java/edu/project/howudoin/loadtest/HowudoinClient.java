@@ -0,0 +1,148 @@
+package edu.project.howudoin.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+// Thin HTTP client for the REST API, every call is timed into the recorder under its endpoint name
+public class HowudoinClient {
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final LatencyRecorder recorder;
+
+    public HowudoinClient(String baseUrl, LatencyRecorder recorder) {
+        this.baseUrl = baseUrl;
+        this.recorder = recorder;
+    }
+
+    public void register(String nickname) {
+        post("register", "/register", null, Map.of(
+                "nickname", nickname, "name", nickname, "lastname", "Load",
+                "email", nickname + "@load.test", "password", "secret"));
+    }
+
+    public String login(String nickname) {
+        JsonNode response = post("login", "/login", null, Map.of(
+                "nickname", nickname, "email", nickname + "@load.test", "password", "secret"));
+        return response == null ? null : response.path("data").asText(null);
+    }
+
+    public void sendFriendRequest(String token, String sender, String receiver) {
+        post("friends/add", "/friends/add", token, Map.of("sender", sender, "receiver", receiver));
+    }
+
+    public void acceptFriendRequest(String token, String sender, String receiver) {
+        post("friends/accept", "/friends/accept?senderNickname=" + encode(sender) + "&receiverNickname=" + encode(receiver), token, Map.of());
+    }
+
+    public void getFriends(String token, String nickname) {
+        get("friends", "/friends?nickname=" + encode(nickname), token);
+    }
+
+    public void sendMessage(String token, String sender, String receiver, String content) {
+        post("messages/send", "/messages/send", token, Map.of("sender", sender, "receiver", receiver, "content", content));
+    }
+
+    public void getMessages(String token) {
+        get("messages", "/messages", token);
+    }
+
+    public void getMessagesBetween(String token, String nickname, String friend) {
+        get("messagesbetween", "/messagesbetween?nickname=" + encode(nickname) + "&friend=" + encode(friend), token);
+    }
+
+    public void createGroup(String token, String creator, List<String> members) {
+        post("groups/create", "/groups/create", token, Map.of(
+                "groupName", groupName(creator), "creatorName", creator, "members", new ArrayList<>(members)));
+    }
+
+    // group id to group name, for every group of the user
+    public Map<String, String> getGroups(String token, String nickname) {
+        Map<String, String> groups = new LinkedHashMap<>();
+        JsonNode response = get("groups", "/groups?nickname=" + encode(nickname), token);
+        if (response != null) {
+            response.path("data").forEach(group -> groups.put(group.path("id").asText(), group.path("name").asText()));
+        }
+        return groups;
+    }
+
+    public void addGroupMember(String token, String groupId, String member) {
+        post("groups/add-member", "/groups/" + groupId + "/add-member?memberName=" + encode(member), token, Map.of());
+    }
+
+    public void sendGroupMessage(String token, String groupId, String sender, String content) {
+        post("groups/send", "/groups/" + groupId + "/send", token, Map.of("sender", sender, "content", content));
+    }
+
+    public void getGroupMessages(String token, String groupId) {
+        get("groups/messages", "/groups/" + groupId + "/messages", token);
+    }
+
+    // groups are named after their creator
+    public static String groupName(String creator) {
+        return creator + "-group";
+    }
+
+    private JsonNode get(String endpoint, String path, String token) {
+        return send(endpoint, request(path, token).GET().build());
+    }
+
+    private JsonNode post(String endpoint, String path, String token, Object body) {
+        try {
+            HttpRequest request = request(path, token)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+            return send(endpoint, request);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    // a failed call is still timed, it counts as an error instead of aborting the run
+    private JsonNode send(String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            boolean ok = response.statusCode() < 400;
+            recorder.record(endpoint, System.nanoTime() - start, ok);
+            return ok ? objectMapper.readTree(response.body()) : null;
+        } catch (IOException e) {
+            recorder.record(endpoint, System.nanoTime() - start, false);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
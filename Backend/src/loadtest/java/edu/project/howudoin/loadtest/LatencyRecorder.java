@@ -0,0 +1,79 @@
+package edu.project.howudoin.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Collects the latency of every call per endpoint (lock free, the workers run on virtual threads)
+public class LatencyRecorder {
+
+    private final Map<String, ConcurrentLinkedQueue<Long>> samples = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+    private volatile boolean recording = true;
+
+    public void record(String endpoint, long nanos, boolean ok) {
+        if (!recording) {
+            return;
+        }
+        samples.computeIfAbsent(endpoint, key -> new ConcurrentLinkedQueue<>()).add(nanos);
+        if (!ok) {
+            errors.computeIfAbsent(endpoint, key -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    public void reset() {
+        samples.clear();
+        errors.clear();
+    }
+
+    // count, errors and p50/p95/p99/max (in ms) per endpoint plus an "all" row
+    public Map<String, Map<String, Object>> summary(double seconds) {
+        Map<String, Map<String, Object>> summary = new LinkedHashMap<>();
+        List<Long> all = new ArrayList<>();
+        long allErrors = 0;
+        for (Map.Entry<String, ConcurrentLinkedQueue<Long>> entry : new TreeMap<>(samples).entrySet()) {
+            List<Long> values = new ArrayList<>(entry.getValue());
+            long endpointErrors = errors.getOrDefault(entry.getKey(), new AtomicLong()).get();
+            summary.put(entry.getKey(), row(values, endpointErrors, seconds));
+            all.addAll(values);
+            allErrors += endpointErrors;
+        }
+        summary.put("all", row(all, allErrors, seconds));
+        return summary;
+    }
+
+    private static Map<String, Object> row(List<Long> values, long errors, double seconds) {
+        Collections.sort(values);
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("count", values.size());
+        row.put("errors", errors);
+        row.put("throughput", Math.round(values.size() / seconds * 10) / 10.0);
+        row.put("p50", millis(percentile(values, 0.50)));
+        row.put("p95", millis(percentile(values, 0.95)));
+        row.put("p99", millis(percentile(values, 0.99)));
+        row.put("max", millis(values.isEmpty() ? 0 : values.get(values.size() - 1)));
+        return row;
+    }
+
+    static long percentile(List<Long> sorted, double quantile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
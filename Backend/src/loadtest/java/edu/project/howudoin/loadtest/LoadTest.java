@@ -0,0 +1,291 @@
+package edu.project.howudoin.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.project.howudoin.HowudoinApplication;
+import org.bson.Document;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+
+// End-to-end load test through the real REST endpoints. The application runs in-process against an embedded
+// MongoDB (or an external one with --mongo-host), N users register, log in, befriend each other, fill their
+// histories and groups, then send and poll messages for a fixed time. Every phase reports throughput and
+// p50/p95/p99 per endpoint, and the data set section shows how large the stored documents have grown.
+//
+// Arguments (all optional): --users=100 --friends-per-user=5 --messages-per-user=20 --groups-per-user=1
+//                           --members-per-group=10 --group-messages=20 --concurrency=200 --duration=30
+//                           --mongo-host=<external mongo> --mongo-port=27017 --profiles=<spring profiles>
+//                           --report=<json file>
+public class LoadTest {
+
+    private final Map<String, String> options;
+    private final int users;
+    private final int friendsPerUser;
+    private final int messagesPerUser;
+    private final int groupsPerUser;
+    private final int membersPerGroup;
+    private final int groupMessages;
+    private final int concurrency;
+    private final int duration;
+
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final Map<String, Object> report = new LinkedHashMap<>();
+    private final List<String> nicknames = new ArrayList<>();
+    private final List<String> tokens = new ArrayList<>();
+    private final List<String> groupIds = new ArrayList<>();
+    private final List<Integer> groupOwners = new ArrayList<>();
+    private HowudoinClient client;
+
+    LoadTest(Map<String, String> options) {
+        this.options = options;
+        this.users = intOption("users", 100);
+        this.friendsPerUser = Math.min(intOption("friends-per-user", 5), users - 1);
+        this.messagesPerUser = intOption("messages-per-user", 20);
+        this.groupsPerUser = intOption("groups-per-user", 1);
+        this.membersPerGroup = Math.min(intOption("members-per-group", 10), users);
+        this.groupMessages = intOption("group-messages", 20);
+        this.concurrency = intOption("concurrency", 200);
+        this.duration = intOption("duration", 30);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        new LoadTest(options).run();
+    }
+
+    void run() throws Exception {
+        report.put("options", new LinkedHashMap<>(options));
+        for (int user = 0; user < users; user++) {
+            tokens.add(null);
+        }
+        try (ConfigurableApplicationContext context = start()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            client = new HowudoinClient("http://localhost:" + port, recorder);
+            MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+            try {
+                phase("register", users, this::register);
+                phase("login", users, this::login);
+                phase("friends", users, this::befriend);
+                phase("history", users, this::fillHistory);
+                phase("groups", users, this::createGroups);
+                collectGroupIds();
+                phase("group-history", groupIds.size(), this::fillGroupHistory);
+                report.put("dataset", dataset(mongoTemplate));
+                steadyState();
+            } finally {
+                if (options.containsKey("mongo-host")) {
+                    mongoTemplate.getDb().drop();
+                }
+            }
+        }
+
+        String reportPath = options.get("report");
+        if (reportPath != null) {
+            File file = new File(reportPath);
+            file.getParentFile().mkdirs();
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+            System.out.println("Report written to " + reportPath);
+        }
+    }
+
+    // embedded MongoDB unless an external one is given, an external database is dropped afterwards
+    private ConfigurableApplicationContext start() {
+        List<String> properties = new ArrayList<>(List.of("server.port=0", "management.server.port=0"));
+        if (options.containsKey("mongo-host")) {
+            properties.add("spring.data.mongodb.host=" + options.get("mongo-host"));
+            properties.add("spring.data.mongodb.port=" + options.getOrDefault("mongo-port", "27017"));
+            properties.add("spring.data.mongodb.database=howudoin_load_" + System.currentTimeMillis());
+            properties.add("spring.autoconfigure.exclude="
+                    + "de.flapdoodle.embed.mongo.spring.autoconfigure.EmbeddedMongoAutoConfiguration");
+        } else {
+            properties.add("de.flapdoodle.mongodb.embedded.version=" + options.getOrDefault("mongo-version", "7.0.14"));
+        }
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(HowudoinApplication.class)
+                .properties(properties.toArray(new String[0]));
+        if (options.containsKey("profiles")) {
+            builder.profiles(options.get("profiles").split(","));
+        }
+        return builder.run();
+    }
+
+    private void register(int user) {
+        client.register(nickname(user));
+    }
+
+    private void login(int user) {
+        tokens.set(user, client.login(nickname(user)));
+    }
+
+    // user i sends requests to the next friendsPerUser users, who accept them
+    private void befriend(int user) {
+        for (int offset = 1; offset <= friendsPerUser; offset++) {
+            int friend = (user + offset) % users;
+            client.sendFriendRequest(tokens.get(user), nickname(user), nickname(friend));
+            client.acceptFriendRequest(tokens.get(friend), nickname(user), nickname(friend));
+        }
+    }
+
+    private void fillHistory(int user) {
+        for (int i = 0; i < messagesPerUser; i++) {
+            int friend = (user + 1 + i % Math.max(1, friendsPerUser)) % users;
+            client.sendMessage(tokens.get(user), nickname(user), nickname(friend), "history " + i);
+        }
+    }
+
+    // groups start with two members and grow one add-member call at a time
+    private void createGroups(int user) {
+        for (int i = 0; i < groupsPerUser; i++) {
+            client.createGroup(tokens.get(user), nickname(user), List.of(nickname((user + 1) % users)));
+        }
+    }
+
+    private void fillGroupHistory(int group) {
+        String groupId = groupIds.get(group);
+        int owner = groupOwners.get(group);
+        for (int member = 2; member < membersPerGroup; member++) {
+            client.addGroupMember(tokens.get(owner), groupId, nickname((owner + member) % users));
+        }
+        for (int i = 0; i < groupMessages; i++) {
+            client.sendGroupMessage(tokens.get(owner), groupId, nickname(owner), "group history " + i);
+        }
+    }
+
+    // every group the users created, with the index of its creator
+    private void collectGroupIds() {
+        Set<String> seen = new HashSet<>();
+        for (int user = 0; user < users; user++) {
+            for (Map.Entry<String, String> group : client.getGroups(tokens.get(user), nickname(user)).entrySet()) {
+                if (group.getValue().equals(HowudoinClient.groupName(nickname(user))) && seen.add(group.getKey())) {
+                    groupIds.add(group.getKey());
+                    groupOwners.add(user);
+                }
+            }
+        }
+    }
+
+    // mixed traffic: 30% direct sends, 25% conversation polls, 10% inbox polls,
+    // 15% group sends, 15% group polls, 5% friend list reads
+    private void steadyState() throws InterruptedException {
+        recorder.reset();
+        long start = System.nanoTime();
+        long deadline = start + duration * 1_000_000_000L;
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        mixedCall(random);
+                    }
+                });
+            }
+        }
+        summarize("steady-state", (System.nanoTime() - start) / 1e9);
+    }
+
+    private void mixedCall(ThreadLocalRandom random) {
+        int user = random.nextInt(users);
+        String token = tokens.get(user);
+        String friend = nickname((user + 1 + random.nextInt(Math.max(1, friendsPerUser))) % users);
+        String groupId = groupIds.isEmpty() ? null : groupIds.get(random.nextInt(groupIds.size()));
+        int roll = random.nextInt(100);
+        if (roll < 30) {
+            client.sendMessage(token, nickname(user), friend, "hello " + roll);
+        } else if (roll < 55) {
+            client.getMessagesBetween(token, nickname(user), friend);
+        } else if (roll < 65) {
+            client.getMessages(token);
+        } else if (roll < 80 && groupId != null) {
+            client.sendGroupMessage(token, groupId, nickname(user), "hello group " + roll);
+        } else if (roll < 95 && groupId != null) {
+            client.getGroupMessages(token, groupId);
+        } else {
+            client.getFriends(token, nickname(user));
+        }
+    }
+
+    // runs one step per index, at most `concurrency` at a time, and reports the calls it made
+    private void phase(String name, int count, IntConsumer step) throws InterruptedException {
+        recorder.reset();
+        long start = System.nanoTime();
+        Semaphore permits = new Semaphore(concurrency);
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                permits.acquire();
+                workers.submit(() -> {
+                    try {
+                        step.accept(index);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        summarize(name, (System.nanoTime() - start) / 1e9);
+    }
+
+    private void summarize(String phase, double seconds) {
+        Map<String, Map<String, Object>> summary = recorder.summary(seconds);
+        report.put(phase, summary);
+        System.out.printf("%n== %s (%.1f s) ==%n", phase, seconds);
+        System.out.printf("%-18s %9s %7s %10s %9s %9s %9s %9s%n", "endpoint", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        summary.forEach((endpoint, row) -> System.out.printf("%-18s %9s %7s %10s %9s %9s %9s %9s%n", endpoint,
+                row.get("count"), row.get("errors"), row.get("throughput"),
+                row.get("p50"), row.get("p95"), row.get("p99"), row.get("max")));
+    }
+
+    // document count and average/largest BSON size per collection (MongoDB rejects documents over 16 MB)
+    private Map<String, Object> dataset(MongoTemplate mongoTemplate) {
+        Map<String, Object> dataset = new LinkedHashMap<>();
+        System.out.printf("%n== data set ==%n%-24s %9s %12s %12s%n", "collection", "documents", "avg bytes", "max bytes");
+        for (String collection : new TreeSet<>(mongoTemplate.getCollectionNames())) {
+            List<Document> pipeline = List.of(
+                    new Document("$project", new Document("size", new Document("$bsonSize", "$$ROOT"))),
+                    new Document("$group", new Document("_id", null)
+                            .append("documents", new Document("$sum", 1))
+                            .append("avg", new Document("$avg", "$size"))
+                            .append("max", new Document("$max", "$size"))));
+            Document stats = mongoTemplate.getCollection(collection).aggregate(pipeline).first();
+            if (stats == null) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("documents", stats.get("documents"));
+            row.put("avgBytes", Math.round(((Number) stats.get("avg")).doubleValue()));
+            row.put("maxBytes", stats.get("max"));
+            dataset.put(collection, row);
+            System.out.printf("%-24s %9s %12s %12s%n", collection, row.get("documents"), row.get("avgBytes"), row.get("maxBytes"));
+        }
+        return dataset;
+    }
+
+    private String nickname(int user) {
+        return "user" + user;
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(options.getOrDefault(name, String.valueOf(defaultValue)));
+    }
+}
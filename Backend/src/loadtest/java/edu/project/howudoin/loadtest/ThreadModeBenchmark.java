@@ -0,0 +1,179 @@
+package edu.project.howudoin.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.project.howudoin.HowudoinApplication;
+import edu.project.howudoin.service.UserService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Starts the application once with platform request threads and once with the "virtual" profile,
+// drives both with the same seeded workload against the same MongoDB and compares throughput and latency.
+// Every run uses its own database, which is dropped afterwards.
+//
+// Arguments (all optional): --mongo-host=localhost --mongo-port=27017 --users=200 --concurrency=400
+//                           --warmup=10 --duration=30 --platform-threads=200 --report=<json file>
+public class ThreadModeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        int users = Integer.parseInt(options.getOrDefault("users", "200"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "400"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("users", users);
+        report.put("concurrency", concurrency);
+        report.put("durationSeconds", duration);
+        for (String mode : List.of("platform", "virtual")) {
+            Map<String, Map<String, Object>> result = run(mode, options, users, concurrency, warmup, duration);
+            report.put(mode, result);
+            print(mode, result);
+        }
+
+        String reportPath = options.get("report");
+        if (reportPath != null) {
+            write(new File(reportPath), report);
+            System.out.println("Report written to " + reportPath);
+        }
+    }
+
+    private static Map<String, Map<String, Object>> run(String mode, Map<String, String> options, int users,
+                                                        int concurrency, int warmup, int duration) throws Exception {
+        boolean virtual = mode.equals("virtual");
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(HowudoinApplication.class)
+                .properties(
+                        "server.port=0",
+                        "management.server.port=0",
+                        "spring.data.mongodb.host=" + options.getOrDefault("mongo-host", "localhost"),
+                        "spring.data.mongodb.port=" + options.getOrDefault("mongo-port", "27017"),
+                        "spring.data.mongodb.database=howudoin_bench_" + mode + "_" + System.currentTimeMillis(),
+                        "server.tomcat.threads.max=" + options.getOrDefault("platform-threads", "200"),
+                        // the embedded MongoDB of the load test would share the machine with the server
+                        "spring.autoconfigure.exclude="
+                                + "de.flapdoodle.embed.mongo.spring.autoconfigure.EmbeddedMongoAutoConfiguration");
+        if (virtual) {
+            builder.profiles("virtual");
+        }
+
+        try (ConfigurableApplicationContext context = builder.run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LatencyRecorder recorder = new LatencyRecorder();
+            HowudoinClient client = new HowudoinClient("http://localhost:" + port, recorder);
+            try {
+                Workload workload = Workload.seed(client, context.getBean(UserService.class), users);
+
+                recorder.setRecording(false);
+                drive(workload, concurrency, warmup);
+                recorder.reset();
+                recorder.setRecording(true);
+                drive(workload, concurrency, duration);
+                recorder.setRecording(false);
+
+                return recorder.summary(duration);
+            } finally {
+                context.getBean(MongoTemplate.class).getDb().drop();
+            }
+        }
+    }
+
+    // every worker loops over the mixed operations until the deadline, the client side never limits concurrency
+    private static void drive(Workload workload, int concurrency, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        workload.next(ThreadLocalRandom.current());
+                    }
+                });
+            }
+        }
+    }
+
+    private static void print(String mode, Map<String, Map<String, Object>> result) {
+        System.out.printf("%n== %s threads ==%n", mode);
+        System.out.printf("%-18s %9s %7s %10s %9s %9s %9s%n", "endpoint", "count", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+        result.forEach((endpoint, row) -> System.out.printf("%-18s %9s %7s %10s %9s %9s %9s%n", endpoint,
+                row.get("count"), row.get("errors"), row.get("throughput"), row.get("p50"), row.get("p99"), row.get("max")));
+    }
+
+    private static void write(File file, Map<String, Object> report) throws IOException {
+        file.getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    // Users in a ring: every user is friends with the next one and owns a group with the next two
+    private record Workload(HowudoinClient client, List<String> nicknames, List<String> tokens, List<String> groupIds) {
+
+        static Workload seed(HowudoinClient client, UserService userService, int users) {
+            List<String> nicknames = new ArrayList<>();
+            List<String> tokens = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                String nickname = "load" + i;
+                client.register(nickname);
+                nicknames.add(nickname);
+                tokens.add(client.login(nickname));
+            }
+            for (int i = 0; i < users; i++) {
+                userService.saveFriendship(nicknames.get(i), nicknames.get((i + 1) % users));
+            }
+            for (int i = 0; i < users; i++) {
+                client.createGroup(tokens.get(i), nicknames.get(i),
+                        List.of(nicknames.get((i + 1) % users), nicknames.get((i + 2) % users)));
+            }
+            Set<String> groupIds = new LinkedHashSet<>();
+            for (int i = 0; i < users; i++) {
+                groupIds.addAll(client.getGroups(tokens.get(i), nicknames.get(i)).keySet());
+            }
+            return new Workload(client, nicknames, tokens, new ArrayList<>(groupIds));
+        }
+
+        // 40% direct sends, 30% conversation reads, 10% each of group creation, group sends and group reads
+        void next(ThreadLocalRandom random) {
+            int user = random.nextInt(nicknames.size());
+            String nickname = nicknames.get(user);
+            String friend = nicknames.get((user + 1) % nicknames.size());
+            String token = tokens.get(user);
+            String groupId = groupIds.get(random.nextInt(groupIds.size()));
+            int roll = random.nextInt(100);
+            if (roll < 40) {
+                client.sendMessage(token, nickname, friend, "hello " + roll);
+            } else if (roll < 70) {
+                client.getMessagesBetween(token, nickname, friend);
+            } else if (roll < 80) {
+                client.createGroup(token, nickname, List.of(friend));
+            } else if (roll < 90) {
+                client.sendGroupMessage(token, groupId, nickname, "hello group " + roll);
+            } else {
+                client.getGroupMessages(token, groupId);
+            }
+        }
+    }
+}
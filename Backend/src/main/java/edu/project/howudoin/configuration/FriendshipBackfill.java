@@ -0,0 +1,39 @@
+package edu.project.howudoin.configuration;
+
+import edu.project.howudoin.model.User;
+import edu.project.howudoin.service.UserService;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+// Moves friend lists of users saved before friendships had their own collection (no-op once done)
+@Component
+public class FriendshipBackfill implements ApplicationRunner {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String users = mongoTemplate.getCollectionName(User.class);
+        Query query = new Query(Criteria.where("friends").exists(true));
+        query.fields().include("nickname", "friends");
+
+        for (Document user : mongoTemplate.find(query, Document.class, users)) {
+            String nickname = user.getString("nickname");
+            for (String friend : user.getList("friends", String.class)) {
+                userService.saveFriendship(nickname, friend);
+            }
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(user.get("_id"))), new Update().unset("friends"), users);
+        }
+    }
+}
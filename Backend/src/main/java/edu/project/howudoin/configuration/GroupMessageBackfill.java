@@ -0,0 +1,66 @@
+package edu.project.howudoin.configuration;
+
+import edu.project.howudoin.model.Group;
+import edu.project.howudoin.model.GroupMessageBucket;
+import edu.project.howudoin.model.GroupMetadata;
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.service.GroupService;
+import edu.project.howudoin.service.SearchService;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Moves messages of groups saved before group history had its own buckets (no-op once done).
+// Legacy ids are below every generated id, so the old history lands in the oldest time span and
+// pages in before anything sent since; fixed bucket ids keep a rerun after a crash from duplicating it.
+@Component
+public class GroupMessageBackfill implements ApplicationRunner {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Value("${howudoin.groups.bucket-span-minutes:60}")
+    private long bucketSpanMinutes;
+    @Value("${howudoin.groups.bucket-max-messages:200}")
+    private int bucketMaxMessages;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String groups = mongoTemplate.getCollectionName(Group.class);
+        Query query = new Query(Criteria.where("messages").exists(true));
+
+        for (Document document : mongoTemplate.find(query, Document.class, groups)) {
+            Group group = mongoTemplate.getConverter().read(Group.class, document);
+            GroupMetadata metadata = GroupMetadata.of(group, 0);
+
+            List<Message> messages = new ArrayList<>();
+            for (Document legacy : document.getList("messages", Document.class)) {
+                messages.add(mongoTemplate.getConverter().read(Message.class, legacy));
+            }
+
+            for (int from = 0; from < messages.size(); from += bucketMaxMessages) {
+                List<Message> chunk = new ArrayList<>(messages.subList(from, Math.min(from + bucketMaxMessages, messages.size())));
+                long bucketStart = GroupService.bucketStart(chunk.get(0).getId(), bucketSpanMinutes);
+                String id = "legacy:" + group.getId() + ":" + from / bucketMaxMessages;
+                mongoTemplate.save(new GroupMessageBucket(id, group.getId(), bucketStart, chunk.size(), chunk));
+                for (Message message : chunk) {
+                    searchService.indexGroupMessage(metadata, message);
+                }
+            }
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(document.get("_id"))), new Update().unset("messages"), groups);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package edu.project.howudoin.configuration;
+
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    // 64-bit ids do not fit into a JavaScript number, so longs are written as strings
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer longsAsStrings() {
+        return builder -> builder
+                .serializerByType(Long.class, ToStringSerializer.instance)
+                .serializerByType(Long.TYPE, ToStringSerializer.instance);
+    }
+}
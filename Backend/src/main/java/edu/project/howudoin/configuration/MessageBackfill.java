@@ -0,0 +1,78 @@
+package edu.project.howudoin.configuration;
+
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.model.User;
+import edu.project.howudoin.service.MessageService;
+import edu.project.howudoin.service.SearchService;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// Moves direct messages of users saved before messages had their own collection (no-op once done).
+// Sender and receiver both kept a copy of each message. Legacy ids came from count(), so unrelated messages
+// can share one: the new id is derived from the legacy id, sender, receiver and sentTime, which the two copies
+// have in common. It stays below every generated id, so the old history pages in before anything sent since.
+@Component
+public class MessageBackfill implements ApplicationRunner {
+    private static final int DISCRIMINATOR_BITS = 20;
+    private static final long DISCRIMINATOR_MASK = (1L << DISCRIMINATOR_BITS) - 1;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String users = mongoTemplate.getCollectionName(User.class);
+        Query query = new Query(Criteria.where("messages").exists(true));
+        query.fields().include("messages");
+
+        for (Document user : mongoTemplate.find(query, Document.class, users)) {
+            List<Message> messages = new ArrayList<>();
+            for (Document legacy : user.getList("messages", Document.class)) {
+                Message message = mongoTemplate.getConverter().read(Message.class, legacy);
+                message.setId(migratedId(message));
+                message.setConversationId(MessageService.conversationId(message.getSender(), message.getReceiver()));
+                message.setParticipants(List.of(message.getSender(), message.getReceiver()));
+                messages.add(message);
+            }
+
+            if (!messages.isEmpty()) {
+                // replacing the same message, so the other side's copy and a rerun after a crash do not duplicate;
+                // two different messages with one derived id fail on the duplicate key instead of being merged
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Message.class);
+                for (Message message : messages) {
+                    Query sameMessage = new Query(Criteria.where("id").is(message.getId())
+                            .and("sender").is(message.getSender())
+                            .and("receiver").is(message.getReceiver())
+                            .and("sentTime").is(message.getSentTime()));
+                    bulk.replaceOne(sameMessage, message, FindAndReplaceOptions.options().upsert());
+                }
+                bulk.execute();
+                searchService.indexDirectMessages(messages);
+            }
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(user.get("_id"))), new Update().unset("messages"), users);
+        }
+    }
+
+    // legacy id (31 bits at most) followed by 20 bits of sender, receiver and sentTime: below 2^51, the first
+    // ids generated a week after IdGenerator.EPOCH, and in legacy id order
+    static long migratedId(Message message) {
+        int discriminator = Objects.hash(message.getSender(), message.getReceiver(), String.valueOf(message.getSentTime()));
+        return (message.getId() << DISCRIMINATOR_BITS) | (discriminator & DISCRIMINATOR_MASK);
+    }
+}
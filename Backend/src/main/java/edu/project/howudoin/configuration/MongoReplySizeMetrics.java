@@ -0,0 +1,85 @@
+package edu.project.howudoin.configuration;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Size of the replies to read commands, by collection and command (timings come from Spring Boot's
+// mongodb.driver.commands meters), so a read path that starts pulling whole documents stands out
+@Configuration
+public class MongoReplySizeMetrics {
+    private static final Set<String> READ_COMMANDS = Set.of("find", "getMore", "aggregate", "findAndModify");
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer replySizeListener(MeterRegistry meterRegistry,
+                                                                  @Value("${howudoin.metrics.mongo-reply-size:true}") boolean enabled) {
+        return builder -> {
+            if (enabled) {
+                builder.addCommandListener(new ReplySizeListener(meterRegistry));
+            }
+        };
+    }
+
+    static class ReplySizeListener implements CommandListener {
+        private final MeterRegistry meterRegistry;
+        // collection of every read command in flight, by request id (replies do not name it)
+        private final Map<Integer, String> collections = new ConcurrentHashMap<>();
+
+        ReplySizeListener(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            if (READ_COMMANDS.contains(event.getCommandName())) {
+                collections.put(event.getRequestId(), collection(event.getCommandName(), event.getCommand()));
+            }
+        }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+            String collection = collections.remove(event.getRequestId());
+            if (collection == null) {
+                return;
+            }
+            DistributionSummary.builder("howudoin.mongo.reply.size")
+                    .baseUnit("bytes")
+                    .tag("collection", collection)
+                    .tag("command", event.getCommandName())
+                    .register(meterRegistry)
+                    .record(size(event.getResponse()));
+        }
+
+        @Override
+        public void commandFailed(CommandFailedEvent event) {
+            collections.remove(event.getRequestId());
+        }
+
+        static String collection(String commandName, BsonDocument command) {
+            BsonValue value = command.get(commandName.equals("getMore") ? "collection" : commandName);
+            return value != null && value.isString() ? value.asString().getValue() : "unknown";
+        }
+
+        static int size(BsonDocument response) {
+            RawBsonDocument raw = response instanceof RawBsonDocument document
+                    ? document
+                    : new RawBsonDocument(response, new BsonDocumentCodec());
+            return raw.getByteBuffer().remaining();
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package edu.project.howudoin.configuration;
 
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
@@ -15,4 +22,32 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedHeaders("*") // Allow all headers
                 .allowCredentials(true); // Allow cookies/credentials if needed
     }
+
+    // Binary bodies for clients that ask for them (Accept: application/x-jackson-smile or application/cbor).
+    // Spring MVC registers Smile and CBOR converters on its own once the dataformats are on the classpath,
+    // after the JSON one, so they are replaced in place: JSON stays the answer to */* and missing Accept headers,
+    // and dates go out as ISO strings like in JSON instead of the arrays of the default mappers.
+    // Numbers are binary here, longs do not need the string form JacksonConfig gives them in JSON.
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        MappingJackson2SmileHttpMessageConverter smile = new MappingJackson2SmileHttpMessageConverter(
+                Jackson2ObjectMapperBuilder.smile().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build());
+        MappingJackson2CborHttpMessageConverter cbor = new MappingJackson2CborHttpMessageConverter(
+                Jackson2ObjectMapperBuilder.cbor().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build());
+        converters.replaceAll(converter -> {
+            if (converter instanceof MappingJackson2SmileHttpMessageConverter) {
+                return smile;
+            }
+            if (converter instanceof MappingJackson2CborHttpMessageConverter) {
+                return cbor;
+            }
+            return converter;
+        });
+        if (!converters.contains(smile)) {
+            converters.add(smile);
+        }
+        if (!converters.contains(cbor)) {
+            converters.add(cbor);
+        }
+    }
 }
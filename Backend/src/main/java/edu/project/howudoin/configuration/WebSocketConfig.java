@@ -0,0 +1,45 @@
+package edu.project.howudoin.configuration;
+
+import edu.project.howudoin.controller.MessagePushHandler;
+import edu.project.howudoin.security.JwtHandshakeInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+@Configuration
+@EnableWebSocket
+@EnableScheduling
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    @Autowired
+    private MessagePushHandler messagePushHandler;
+
+    @Autowired
+    private JwtHandshakeInterceptor jwtHandshakeInterceptor;
+
+    @Value("${howudoin.push.idle-timeout-ms:120000}")
+    private long idleTimeout;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(messagePushHandler, "/ws") // Push channel for new messages
+                .addInterceptors(jwtHandshakeInterceptor) // Same JWT as the REST endpoints
+                .setAllowedOrigins("http://localhost:8081"); // Allow requests from your frontend
+    }
+
+    // Clients only listen, so small receive buffers keep idle connections cheap
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(8192);
+        container.setMaxBinaryMessageBufferSize(8192);
+        container.setMaxSessionIdleTimeout(idleTimeout); // Heartbeat pings keep live sessions open
+        return container;
+    }
+}
@@ -0,0 +1,53 @@
+package edu.project.howudoin.controller;
+
+import edu.project.howudoin.model.Conversation;
+import edu.project.howudoin.security.AuthenticatedUser;
+import edu.project.howudoin.service.ConversationService;
+import edu.project.howudoin.service.GroupService;
+import edu.project.howudoin.utils.APIResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@Profile("!reactive")
+public class ConversationController {
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private GroupService groupService;
+
+    // GET /conversations: Retrieve the caller's chat list (friends and groups, latest message first)
+    @GetMapping("/conversations")
+    public ResponseEntity<APIResponse<List<Conversation>>> getConversations(@AuthenticationPrincipal AuthenticatedUser user) {
+        List<Conversation> conversations = conversationService.getConversations(user.nickname());
+        return ResponseEntity.ok(new APIResponse<>(1, "Conversations are retrieved successfully!", conversations));
+    }
+
+    // POST /conversations/read: Clears the unread count of a conversation with a friend (peer) or a group (groupId)
+    @PostMapping("/conversations/read")
+    public ResponseEntity<APIResponse<String>> markConversationRead(@AuthenticationPrincipal AuthenticatedUser user,
+                                                                    @RequestParam(value = "peer", required = false) String peer,
+                                                                    @RequestParam(value = "groupId", required = false) Long groupId) {
+        if ((peer == null) == (groupId == null)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new APIResponse<>(0, "Give either a peer or a groupId.", null));
+        }
+
+        if (peer != null) {
+            conversationService.markDirectRead(user.nickname(), peer);
+        } else if (groupService.memberCheck(groupId, user.nickname())) {
+            conversationService.markGroupRead(user.nickname(), groupId);
+        } else {
+            return ResponseEntity.ok(new APIResponse<>(0, "You are not a member of this group.", null));
+        }
+        return ResponseEntity.ok(new APIResponse<>(1, "Conversation is marked as read.", null));
+    }
+}
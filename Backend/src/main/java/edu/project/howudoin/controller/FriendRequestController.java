@@ -1,13 +1,13 @@
 package edu.project.howudoin.controller;
 
 import edu.project.howudoin.model.FriendRequest;
-import edu.project.howudoin.security.JwtUtil;
+import edu.project.howudoin.service.ChangeCounterService;
 import edu.project.howudoin.service.FriendRequestService;
 import edu.project.howudoin.utils.APIResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -18,35 +18,21 @@ public class FriendRequestController {
     private FriendRequestService friendRequestService;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private ChangeCounterService changeCounterService;
 
     // GET /friends: Retrieve friend list
     @GetMapping("/friends")
-    public ResponseEntity<APIResponse<List<String>>> getFriends(@RequestHeader("Authorization") String token,
-                                                                @RequestParam("nickname") String nickname) {
-        String jwt = extractJwt(token);
-        String email = jwtUtil.extractEmail(jwt);
-
-        if (!jwtUtil.validateToken(jwt, email)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new APIResponse<>(0, "Invalid token!", null));
+    public ResponseEntity<APIResponse<List<String>>> getFriends(@RequestParam("nickname") String nickname, WebRequest request) {
+        if (request.checkNotModified(changeCounterService.userEtag(nickname))) {
+            return null;
         }
-
         List<String> friends = friendRequestService.getFriends(nickname);
         return ResponseEntity.ok(new APIResponse<>(1, "Friends are retrieved successfully!", friends));
     }
 
     // GET /friends/requests: Retrieve pending friend requests
     @GetMapping("/friends/requests")
-    public ResponseEntity<APIResponse<List<FriendRequest>>> getFriendRequests(@RequestHeader("Authorization") String token,
-                                                                              @RequestParam("receiverNickname") String receiverNickname) {
-        String jwt = extractJwt(token);
-        String email = jwtUtil.extractEmail(jwt);
-
-        if (!jwtUtil.validateToken(jwt, email)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new APIResponse<>(0, "Invalid Token", null));
-        }
-
+    public ResponseEntity<APIResponse<List<FriendRequest>>> getFriendRequests(@RequestParam("receiverNickname") String receiverNickname) {
         List<FriendRequest> friendRequests = friendRequestService.getPendingRequests(receiverNickname)
                 .stream()
                 .filter(request -> !request.isAccepted())
@@ -61,17 +47,8 @@ public class FriendRequestController {
 
     // POST /friends/add: Send a friend request
     @PostMapping("/friends/add")
-    public ResponseEntity<APIResponse<String>> sendRequest(@RequestHeader("Authorization") String token,
-                                                           @RequestBody FriendRequest friendRequest) {
-        String jwt = extractJwt(token);
-        String email = jwtUtil.extractEmail(jwt);
-
-        if (!jwtUtil.validateToken(jwt, email)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new APIResponse<>(0, "Invalid Token", null));
-        }
-
-        int id = friendRequestService.generateRequestId();
+    public ResponseEntity<APIResponse<String>> sendRequest(@RequestBody FriendRequest friendRequest) {
+        long id = friendRequestService.generateRequestId();
         String senderNickname = friendRequest.getSender();
         String receiverNickname = friendRequest.getReceiver();
         FriendRequest request = new FriendRequest(id, senderNickname, receiverNickname, false);
@@ -82,16 +59,8 @@ public class FriendRequestController {
 
     // POST /friends/accept: Accept a friend request
     @PostMapping("/friends/accept")
-    public ResponseEntity<APIResponse<String>> acceptRequest(@RequestHeader("Authorization") String token,
-                                                             @RequestParam("senderNickname") String senderNickname,
+    public ResponseEntity<APIResponse<String>> acceptRequest(@RequestParam("senderNickname") String senderNickname,
                                                              @RequestParam("receiverNickname") String receiverNickname) {
-        String jwt = extractJwt(token);
-        String email = jwtUtil.extractEmail(jwt);
-
-        if (!jwtUtil.validateToken(jwt, email)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new APIResponse<>(0, "Invalid Token", null));}
-
         if (!friendRequestService.checkRequest(senderNickname, receiverNickname)) {
             return ResponseEntity.ok(new APIResponse<>(0, "There is no such request.", null));
         }
@@ -105,11 +74,4 @@ public class FriendRequestController {
         return ResponseEntity.ok(new APIResponse<>(1, result, null));
     }
 
-    private String extractJwt(String token) {
-        if (token == null || !token.startsWith("Bearer ")) {
-            throw new RuntimeException("Authorization header must start with 'Bearer '");
-        }
-        return token.substring(7);
-    }
-
 }
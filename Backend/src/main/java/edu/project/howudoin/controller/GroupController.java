@@ -1,15 +1,20 @@
 package edu.project.howudoin.controller;
 
 import edu.project.howudoin.model.Group;
+import edu.project.howudoin.model.GroupMetadata;
 import edu.project.howudoin.model.Message;
-import edu.project.howudoin.security.JwtUtil;
+import edu.project.howudoin.security.AuthenticatedUser;
+import edu.project.howudoin.service.ChangeCounterService;
 import edu.project.howudoin.service.GroupService;
 import edu.project.howudoin.service.UserService;
 import edu.project.howudoin.utils.APIResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -18,6 +23,7 @@ import java.util.Map;
 import java.util.HashMap;
 
 @RestController
+@Profile("!reactive")
 public class GroupController {
 
     @Autowired
@@ -27,28 +33,21 @@ public class GroupController {
     private UserService userService;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private ChangeCounterService changeCounterService;
 
     // GET /groups: Retrieve group list
     @GetMapping("/groups")
-    public ResponseEntity<APIResponse<List<Map<String, Object>>>> getAllGroups(@RequestHeader("Authorization") String token,
-                                                                               @RequestParam("nickname") String nickname) {
-        String jwt = extractJwt(token);
-        String email = jwtUtil.extractEmail(jwt);
-
-        if (!jwtUtil.validateToken(jwt, email)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new APIResponse<>(0, "Invalid Token", null));
+    public ResponseEntity<APIResponse<List<Map<String, Object>>>> getAllGroups(@RequestParam("nickname") String nickname,
+                                                                              WebRequest request) {
+        if (request.checkNotModified(changeCounterService.userEtag(nickname))) {
+            return null;
         }
-
-        List<Integer> groupIds = groupService.getGroups(nickname);
-        List<String> groupNames = groupService.getGroupNames(nickname);
         List<Map<String, Object>> groups = new ArrayList<>();
 
-        for (int i = 0; i < groupIds.size(); i++) {
+        for (Group summary : groupService.getGroupSummaries(nickname)) {
             Map<String, Object> group = new HashMap<>();
-            group.put("id", groupIds.get(i));
-            group.put("name", groupNames.get(i));
+            group.put("id", summary.getId());
+            group.put("name", summary.getGroupName());
             groups.add(group);
         }
 
@@ -57,43 +56,25 @@ public class GroupController {
 
     // GET /groups/{groupId}/details: Retrieving group details
     @GetMapping("/groups/{groupId}/details")
-    public ResponseEntity<APIResponse<Map<String, Object>>> getGroupDetails(@RequestHeader("Authorization") String token,
-                                                                            @PathVariable("groupId") int groupId) {
-        String jwt = extractJwt(token);
-        String email = jwtUtil.extractEmail(jwt);
-
-        if (!jwtUtil.validateToken(jwt, email)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new APIResponse<>(0, "Invalid Token", null));
-        }
-
-        Group group = groupService.getGroup(groupId);
+    public ResponseEntity<APIResponse<Map<String, Object>>> getGroupDetails(@PathVariable("groupId") long groupId) {
+        GroupMetadata group = groupService.getGroup(groupId);
         if (group == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(new APIResponse<>(0, "Group not found", null));
         }
 
         Map<String, Object> groupDetails = new HashMap<>();
-        groupDetails.put("id", group.getId());
-        groupDetails.put("name", group.getGroupName());
-        groupDetails.put("createdTime", group.getCreatedTime());
-        groupDetails.put("members", group.getMembers());
+        groupDetails.put("id", group.id());
+        groupDetails.put("name", group.groupName());
+        groupDetails.put("createdTime", group.createdTime());
+        groupDetails.put("members", group.memberList());
 
         return ResponseEntity.ok(new APIResponse<>(1, "Group details retrieved successfully!", groupDetails));
     }
 
     // POST /groups/create: Creates a new group
     @PostMapping("/groups/create")
-    public ResponseEntity<APIResponse<String>> createGroup(@RequestHeader("Authorization") String token,
-                                                           @RequestBody Group group) {
-        String jwt = extractJwt(token);
-        String email = jwtUtil.extractEmail(jwt);
-
-        if (!jwtUtil.validateToken(jwt, email)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new APIResponse<>(0, "Invalid Token", null));
-        }
-
+    public ResponseEntity<APIResponse<String>> createGroup(@RequestBody Group group) {
         List<String> invalidMembers = new ArrayList<>();
         for (String member : group.getMembers()) {
             if (!userService.userCheck(member)) {
@@ -105,14 +86,12 @@ public class GroupController {
             return ResponseEntity.ok(new APIResponse<>(0, "These member(s) are not valid users: " + invalidMembers, null));
         }
 
-        int id = groupService.generateGroupId();
+        long id = groupService.generateGroupId();
         group.setId(id);
         group.getMembers().add(group.getCreatorName());
         group.setCreatedTime(LocalDateTime.now());
 
-        for (String member : group.getMembers()) {
-            userService.addToGroups(member, group.getId());
-        }
+        userService.addToGroups(group.getMembers(), group.getId());
 
         groupService.saveGroup(group);
         return ResponseEntity.status(HttpStatus.CREATED)
@@ -121,17 +100,8 @@ public class GroupController {
 
     // POST /groups/{groupId}/add-member: Adds a new member to an existing group
     @PostMapping("/groups/{groupId}/add-member")
-    public ResponseEntity<APIResponse<String>> addMemberToGroup(@RequestHeader("Authorization") String token,
-                                                                @PathVariable("groupId") int groupId,
+    public ResponseEntity<APIResponse<String>> addMemberToGroup(@PathVariable("groupId") long groupId,
                                                                 @RequestParam("memberName") String memberName) {
-        String jwt = extractJwt(token);
-        String email = jwtUtil.extractEmail(jwt);
-
-        if (!jwtUtil.validateToken(jwt, email)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new APIResponse<>(0, "Invalid Token", null));
-        }
-
         boolean userExists = userService.userCheck(memberName);
         boolean memberAlreadyInGroup = groupService.memberCheck(groupId, memberName);
 
@@ -141,73 +111,78 @@ public class GroupController {
             return ResponseEntity.ok(new APIResponse<>(0, "There is no such user named " + memberName + ".", null));
         }
 
-        Group group = groupService.getGroup(groupId);
-        userService.addToGroups(memberName, group.getId());
-        groupService.addMember(group, memberName);
+        userService.addToGroups(memberName, groupId);
+        groupService.addMember(groupId, memberName);
 
         return ResponseEntity.ok(new APIResponse<>(1, "Member is added to the group.", null));
     }
 
     // POST /groups/{groupId}/send: Sends a message to all members of the specified group
     @PostMapping("/groups/{groupId}/send")
-    public ResponseEntity<APIResponse<String>> sendMessageToGroup(@RequestHeader("Authorization") String token,
-                                                                  @PathVariable("groupId") int groupId,
+    public ResponseEntity<APIResponse<String>> sendMessageToGroup(@PathVariable("groupId") long groupId,
                                                                   @RequestBody Message message) {
-        String jwt = extractJwt(token);
-        String email = jwtUtil.extractEmail(jwt);
-
-        if (!jwtUtil.validateToken(jwt, email)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new APIResponse<>(0, "Invalid Token", null));
+        GroupMetadata group = groupService.getGroup(groupId);
+        if (group == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new APIResponse<>(0, "Group not found", null));
         }
 
-        int id = groupService.generateMessageId();
+        long id = groupService.generateMessageId();
         message.setId(id);
-        message.setReceiver(groupService.getGroup(groupId).getGroupName());
-        Group group = groupService.getGroup(groupId);
+        message.setReceiver(group.groupName());
         groupService.sendMessage(group, message);
 
         return ResponseEntity.ok(new APIResponse<>(1, "Message is sent to the group.", null));
     }
 
     // GET /groups/{groupId}/messages: Retrieves the message history for the group
+    // (one page, use before/after with a message id to move, unread=true to start after the caller's read position)
     @GetMapping("/groups/{groupId}/messages")
-    public ResponseEntity<APIResponse<List<Message>>> getMessagesOfGroup(@RequestHeader("Authorization") String token,
-                                                                         @PathVariable("groupId") int groupId) {
-        String jwt = extractJwt(token);
-        String email = jwtUtil.extractEmail(jwt);
-
-        if (!jwtUtil.validateToken(jwt, email)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new APIResponse<>(0, "Invalid Token", null));
+    public ResponseEntity<APIResponse<List<Message>>> getMessagesOfGroup(@AuthenticationPrincipal AuthenticatedUser user,
+                                                                         @PathVariable("groupId") long groupId,
+                                                                         @RequestParam(value = "before", required = false) Long before,
+                                                                         @RequestParam(value = "after", required = false) Long after,
+                                                                         @RequestParam(value = "limit", required = false) Integer limit,
+                                                                         @RequestParam(value = "unread", defaultValue = "false") boolean unread,
+                                                                         WebRequest request) {
+        if (before != null && after != null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new APIResponse<>(0, "Use either before or after, not both.", null));
         }
-
-        Group group = groupService.getGroup(groupId);
-        List<Message> groupMessages = group.getMessages();
+        // the unread page also moves with the caller's read position
+        List<String> readers = unread ? List.of(user.nickname()) : List.of();
+        if (request.checkNotModified(changeCounterService.etag(readers, List.of(groupId)))) {
+            return null;
+        }
+        if (unread && after == null) {
+            after = groupService.getReadPosition(groupId, user.nickname());
+        }
+        List<Message> groupMessages = groupService.getMessages(groupId, before, after, limit);
 
         return ResponseEntity.ok(new APIResponse<>(1, "Messages are retrieved successfully!", groupMessages));
     }
 
-    // GET /groups/{groupId}/members: Retrieves the list of members for the group
-    @GetMapping("/groups/{groupId}/members")
-    public ResponseEntity<APIResponse<List<String>>> getMembersOfGroup(@RequestHeader("Authorization") String token,
-                                                                       @PathVariable("groupId") int groupId) {
-        String jwt = extractJwt(token);
-        String email = jwtUtil.extractEmail(jwt);
-
-        if (!jwtUtil.validateToken(jwt, email)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new APIResponse<>(0, "Invalid Token", null));
+    // POST /groups/{groupId}/read: Saves the id of the last message the caller has read
+    @PostMapping("/groups/{groupId}/read")
+    public ResponseEntity<APIResponse<String>> markGroupRead(@AuthenticationPrincipal AuthenticatedUser user,
+                                                             @PathVariable("groupId") long groupId,
+                                                             @RequestParam("messageId") long messageId) {
+        if (!groupService.memberCheck(groupId, user.nickname())) {
+            return ResponseEntity.ok(new APIResponse<>(0, "You are not a member of this group.", null));
         }
 
-        Group group = groupService.getGroup(groupId);
-        return ResponseEntity.ok(new APIResponse<>(1, "Members are retrieved successfully!", group.getMembers()));
+        groupService.markRead(groupId, user.nickname(), messageId);
+        return ResponseEntity.ok(new APIResponse<>(1, "Read position is saved.", null));
     }
 
-    private String extractJwt(String token) {
-        if (token == null || !token.startsWith("Bearer ")) {
-            throw new RuntimeException("Authorization header must start with 'Bearer '");
+    // GET /groups/{groupId}/members: Retrieves the list of members for the group
+    @GetMapping("/groups/{groupId}/members")
+    public ResponseEntity<APIResponse<List<String>>> getMembersOfGroup(@PathVariable("groupId") long groupId) {
+        GroupMetadata group = groupService.getGroup(groupId);
+        if (group == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new APIResponse<>(0, "Group not found", null));
         }
-        return token.substring(7);
+        return ResponseEntity.ok(new APIResponse<>(1, "Members are retrieved successfully!", group.memberList()));
     }
 }
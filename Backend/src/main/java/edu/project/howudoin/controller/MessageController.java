@@ -1,19 +1,24 @@
 package edu.project.howudoin.controller;
 
 import edu.project.howudoin.model.Message;
-import edu.project.howudoin.model.User;
-import edu.project.howudoin.security.JwtUtil;
+import edu.project.howudoin.security.AuthenticatedUser;
+import edu.project.howudoin.service.ChangeCounterService;
 import edu.project.howudoin.service.MessageService;
 import edu.project.howudoin.service.UserService;
 import edu.project.howudoin.utils.APIResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
+@Profile("!reactive")
 public class MessageController {
 
     @Autowired
@@ -23,21 +28,23 @@ public class MessageController {
     private UserService userService;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private ChangeCounterService changeCounterService;
 
-    // GET /messages: Retrieve conversation history
+    // GET /messages: Retrieve conversation history (one page, use before/after with a message id to move)
     @GetMapping("/messages")
-    public ResponseEntity<APIResponse<List<Message>>> getMessages(@RequestHeader("Authorization") String token) {
-        String jwt = extractJwt(token);
-        String email = jwtUtil.extractEmail(jwt);
-
-        if (!jwtUtil.validateToken(jwt, email)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new APIResponse<>(0, "Invalid Token", null));
+    public ResponseEntity<APIResponse<List<Message>>> getMessages(@AuthenticationPrincipal AuthenticatedUser user,
+                                                                  @RequestParam(value = "before", required = false) Long before,
+                                                                  @RequestParam(value = "after", required = false) Long after,
+                                                                  @RequestParam(value = "limit", required = false) Integer limit,
+                                                                  WebRequest request) {
+        if (before != null && after != null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new APIResponse<>(0, "Use either before or after, not both.", null));
         }
-
-        User user = userService.getUserByEmail(email);
-        List<Message> messages = messageService.getMessages(user);
+        if (request.checkNotModified(changeCounterService.userEtag(user.nickname()))) {
+            return null; // 304, nothing was sent or received since the client's copy
+        }
+        List<Message> messages = messageService.getMessages(user.nickname(), before, after, limit);
 
         if (messages.isEmpty()) {
             return ResponseEntity.ok(new APIResponse<>(0, "No messages.", messages));
@@ -46,28 +53,28 @@ public class MessageController {
         return ResponseEntity.ok(new APIResponse<>(1, "Messages are retrieved successfully!", messages));
     }
 
+    // GET /messagesbetween: Retrieve messages between two users (one page, use before/after with a message id to move)
     @GetMapping("/messagesbetween")
-    public ResponseEntity<APIResponse<List<Message>>> getMessagesBetweenTwoUsers(@RequestHeader("Authorization") String token,
-                                                                                 @RequestParam("nickname") String nickname,
-                                                                                 @RequestParam("friend") String friend) {
-        String jwt = extractJwt(token);
-        String email = jwtUtil.extractEmail(jwt);
-
-        if (!jwtUtil.validateToken(jwt, email)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new APIResponse<>(0, "Invalid Token", null));
+    public ResponseEntity<APIResponse<List<Message>>> getMessagesBetweenTwoUsers(@RequestParam("nickname") String nickname,
+                                                                                 @RequestParam("friend") String friend,
+                                                                                 @RequestParam(value = "before", required = false) Long before,
+                                                                                 @RequestParam(value = "after", required = false) Long after,
+                                                                                 @RequestParam(value = "limit", required = false) Integer limit,
+                                                                                 WebRequest request) {
+        if (before != null && after != null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new APIResponse<>(0, "Use either before or after, not both.", null));
+        }
+        if (request.checkNotModified(changeCounterService.userEtag(nickname))) {
+            return null;
         }
-
         try {
-            User user = userService.getUser(nickname);
-            User friendUser = userService.getUser(friend);
-
-            if (user == null || friendUser == null) {
+            if (!userService.userCheck(nickname) || !userService.userCheck(friend)) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                         .body(new APIResponse<>(0, "User or friend not found.", null));
             }
 
-            List<Message> messages = messageService.getMessagesBetween(user, friendUser);
+            List<Message> messages = messageService.getMessagesBetween(nickname, friend, before, after, limit);
 
             if (messages == null || messages.isEmpty()) {
                 return ResponseEntity.ok(new APIResponse<>(0, "No messages.", messages));
@@ -83,28 +90,28 @@ public class MessageController {
 
     // POST /messages/send: Send a message to a friend
     @PostMapping("/messages/send")
-    public ResponseEntity<APIResponse<String>> sendMessage(@RequestHeader("Authorization") String token,
-                                                           @RequestBody Message message) {
-        String jwt = extractJwt(token);
-        String email = jwtUtil.extractEmail(jwt);
-
-        if (!jwtUtil.validateToken(jwt, email)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new APIResponse<>(0, "Invalid Token", null));
-        }
-
-        int id = messageService.generateMessageId();
+    public ResponseEntity<APIResponse<String>> sendMessage(@RequestBody Message message) {
+        long id = messageService.generateMessageId();
         message.setId(id);
         String result = messageService.sendMessage(message);
 
         return ResponseEntity.ok(new APIResponse<>(1, result, null));
     }
 
-    private String extractJwt(String token) {
-        if (token == null || !token.startsWith("Bearer ")) {
-            throw new RuntimeException("Authorization header must start with 'Bearer '");
+    // POST /messages/send-batch: Send many messages at once (e.g. an offline queue), one result per message in order
+    // (every message is sent as the caller, entries naming another sender are rejected)
+    @PostMapping("/messages/send-batch")
+    public ResponseEntity<APIResponse<List<Map<String, Object>>>> sendMessages(@AuthenticationPrincipal AuthenticatedUser user,
+                                                                               @RequestBody List<Message> messages) {
+        if (messages.isEmpty() || messages.size() > MessageService.MAX_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new APIResponse<>(0, "A batch must contain between 1 and " + MessageService.MAX_BATCH_SIZE + " messages.", null));
         }
-        return token.substring(7);
+
+        List<Map<String, Object>> results = messageService.sendMessages(user.nickname(), messages);
+        long sent = results.stream().filter(result -> result.get("status").equals(1)).count();
+
+        return ResponseEntity.ok(new APIResponse<>(1, sent + " of " + messages.size() + " messages are sent.", results));
     }
 
 }
@@ -0,0 +1,38 @@
+package edu.project.howudoin.controller;
+
+import edu.project.howudoin.security.JwtHandshakeInterceptor;
+import edu.project.howudoin.service.MessagePushService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+// WS /ws: Pushes new direct and group messages of the authenticated user
+@Component
+public class MessagePushHandler extends TextWebSocketHandler {
+
+    @Autowired
+    private MessagePushService messagePushService;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        if (!messagePushService.register(nickname(session), session)) {
+            session.close(CloseStatus.SERVICE_OVERLOAD);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        messagePushService.unregister(nickname(session), session);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        messagePushService.unregister(nickname(session), session);
+    }
+
+    private String nickname(WebSocketSession session) {
+        return (String) session.getAttributes().get(JwtHandshakeInterceptor.NICKNAME);
+    }
+}
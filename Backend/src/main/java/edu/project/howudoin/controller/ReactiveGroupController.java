@@ -0,0 +1,136 @@
+package edu.project.howudoin.controller;
+
+import edu.project.howudoin.model.Group;
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.security.AuthenticatedUser;
+import edu.project.howudoin.service.ReactiveGroupService;
+import edu.project.howudoin.utils.APIResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Same API as GroupController, but the request thread is released while MongoDB works ("reactive" profile)
+@RestController
+@Profile("reactive")
+public class ReactiveGroupController {
+
+    @Autowired
+    private ReactiveGroupService groupService;
+
+    // GET /groups: Retrieve group list
+    @GetMapping("/groups")
+    public Mono<ResponseEntity<APIResponse<List<Map<String, Object>>>>> getAllGroups(@RequestParam("nickname") String nickname) {
+        return groupService.getGroupSummaries(nickname).map(summaries -> {
+            List<Map<String, Object>> groups = new ArrayList<>();
+            for (Group summary : summaries) {
+                Map<String, Object> group = new HashMap<>();
+                group.put("id", summary.getId());
+                group.put("name", summary.getGroupName());
+                groups.add(group);
+            }
+            return ResponseEntity.ok(new APIResponse<>(1, "Groups retrieved successfully!", groups));
+        });
+    }
+
+    // GET /groups/{groupId}/details: Retrieving group details
+    @GetMapping("/groups/{groupId}/details")
+    public Mono<ResponseEntity<APIResponse<Map<String, Object>>>> getGroupDetails(@PathVariable("groupId") long groupId) {
+        return groupService.getGroup(groupId)
+                .map(group -> {
+                    Map<String, Object> groupDetails = new HashMap<>();
+                    groupDetails.put("id", group.getId());
+                    groupDetails.put("name", group.getGroupName());
+                    groupDetails.put("createdTime", group.getCreatedTime());
+                    groupDetails.put("members", group.getMembers());
+                    return ResponseEntity.ok(new APIResponse<>(1, "Group details retrieved successfully!", groupDetails));
+                })
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(new APIResponse<>(0, "Group not found", null)));
+    }
+
+    // POST /groups/create: Creates a new group
+    @PostMapping("/groups/create")
+    public Mono<ResponseEntity<APIResponse<String>>> createGroup(@RequestBody Group group) {
+        return groupService.createGroup(group).map(invalidMembers -> invalidMembers.isEmpty()
+                ? ResponseEntity.status(HttpStatus.CREATED).body(new APIResponse<String>(1, "Group is created.", null))
+                : ResponseEntity.ok(new APIResponse<String>(0, "These member(s) are not valid users: " + invalidMembers, null)));
+    }
+
+    // POST /groups/{groupId}/add-member: Adds a new member to an existing group
+    @PostMapping("/groups/{groupId}/add-member")
+    public Mono<ResponseEntity<APIResponse<String>>> addMemberToGroup(@PathVariable("groupId") long groupId,
+                                                                      @RequestParam("memberName") String memberName) {
+        return groupService.memberCheck(groupId, memberName).flatMap(memberAlreadyInGroup -> {
+            if (memberAlreadyInGroup) {
+                return Mono.just(ResponseEntity.ok(new APIResponse<String>(0, "Invalid Token", null)));
+            }
+            return groupService.addMember(groupId, memberName).map(added -> added
+                    ? ResponseEntity.ok(new APIResponse<String>(1, "Member is added to the group.", null))
+                    : ResponseEntity.ok(new APIResponse<String>(0, "There is no such user named " + memberName + ".", null)));
+        });
+    }
+
+    // POST /groups/{groupId}/send: Sends a message to all members of the specified group
+    @PostMapping("/groups/{groupId}/send")
+    public Mono<ResponseEntity<APIResponse<String>>> sendMessageToGroup(@PathVariable("groupId") long groupId,
+                                                                        @RequestBody Message message) {
+        message.setId(groupService.generateMessageId());
+        return groupService.sendMessage(groupId, message)
+                .map(group -> ResponseEntity.ok(new APIResponse<String>(1, "Message is sent to the group.", null)))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(new APIResponse<>(0, "Group not found", null)));
+    }
+
+    // GET /groups/{groupId}/messages: Retrieves the message history for the group
+    // (one page, use before/after with a message id to move, unread=true to start after the caller's read position)
+    @GetMapping("/groups/{groupId}/messages")
+    public Mono<ResponseEntity<APIResponse<List<Message>>>> getMessagesOfGroup(@AuthenticationPrincipal AuthenticatedUser user,
+                                                                               @PathVariable("groupId") long groupId,
+                                                                               @RequestParam(value = "before", required = false) Long before,
+                                                                               @RequestParam(value = "after", required = false) Long after,
+                                                                               @RequestParam(value = "limit", required = false) Integer limit,
+                                                                               @RequestParam(value = "unread", defaultValue = "false") boolean unread) {
+        if (before != null && after != null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new APIResponse<List<Message>>(0, "Use either before or after, not both.", null)));
+        }
+        Mono<List<Message>> groupMessages = (unread && after == null)
+                ? groupService.getReadPosition(groupId, user.nickname())
+                        .flatMap(position -> groupService.getMessages(groupId, before, position, limit))
+                : groupService.getMessages(groupId, before, after, limit);
+
+        return groupMessages.map(messages -> ResponseEntity.ok(new APIResponse<>(1, "Messages are retrieved successfully!", messages)));
+    }
+
+    // POST /groups/{groupId}/read: Saves the id of the last message the caller has read
+    @PostMapping("/groups/{groupId}/read")
+    public Mono<ResponseEntity<APIResponse<String>>> markGroupRead(@AuthenticationPrincipal AuthenticatedUser user,
+                                                                   @PathVariable("groupId") long groupId,
+                                                                   @RequestParam("messageId") long messageId) {
+        return groupService.memberCheck(groupId, user.nickname()).flatMap(member -> {
+            if (!member) {
+                return Mono.just(ResponseEntity.ok(new APIResponse<String>(0, "You are not a member of this group.", null)));
+            }
+            return groupService.markRead(groupId, user.nickname(), messageId)
+                    .thenReturn(ResponseEntity.ok(new APIResponse<String>(1, "Read position is saved.", null)));
+        });
+    }
+
+    // GET /groups/{groupId}/members: Retrieves the list of members for the group
+    @GetMapping("/groups/{groupId}/members")
+    public Mono<ResponseEntity<APIResponse<List<String>>>> getMembersOfGroup(@PathVariable("groupId") long groupId) {
+        return groupService.getGroup(groupId)
+                .map(group -> ResponseEntity.ok(new APIResponse<>(1, "Members are retrieved successfully!", group.getMembers())))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(new APIResponse<>(0, "Group not found", null)));
+    }
+}
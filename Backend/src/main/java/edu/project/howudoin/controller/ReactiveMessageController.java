@@ -0,0 +1,89 @@
+package edu.project.howudoin.controller;
+
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.security.AuthenticatedUser;
+import edu.project.howudoin.service.MessageService;
+import edu.project.howudoin.service.ReactiveMessageService;
+import edu.project.howudoin.utils.APIResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+// Same API as MessageController, but the request thread is released while MongoDB works ("reactive" profile)
+@RestController
+@Profile("reactive")
+public class ReactiveMessageController {
+
+    @Autowired
+    private ReactiveMessageService messageService;
+
+    // GET /messages: Retrieve conversation history (one page, use before/after with a message id to move)
+    @GetMapping("/messages")
+    public Mono<ResponseEntity<APIResponse<List<Message>>>> getMessages(@AuthenticationPrincipal AuthenticatedUser user,
+                                                                        @RequestParam(value = "before", required = false) Long before,
+                                                                        @RequestParam(value = "after", required = false) Long after,
+                                                                        @RequestParam(value = "limit", required = false) Integer limit) {
+        if (before != null && after != null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new APIResponse<List<Message>>(0, "Use either before or after, not both.", null)));
+        }
+        return messageService.getMessages(user.nickname(), before, after, limit)
+                .map(messages -> messages.isEmpty()
+                        ? ResponseEntity.ok(new APIResponse<>(0, "No messages.", messages))
+                        : ResponseEntity.ok(new APIResponse<>(1, "Messages are retrieved successfully!", messages)));
+    }
+
+    // GET /messagesbetween: Retrieve messages between two users (one page, use before/after with a message id to move)
+    @GetMapping("/messagesbetween")
+    public Mono<ResponseEntity<APIResponse<List<Message>>>> getMessagesBetweenTwoUsers(@RequestParam("nickname") String nickname,
+                                                                                       @RequestParam("friend") String friend,
+                                                                                       @RequestParam(value = "before", required = false) Long before,
+                                                                                       @RequestParam(value = "after", required = false) Long after,
+                                                                                       @RequestParam(value = "limit", required = false) Integer limit) {
+        if (before != null && after != null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new APIResponse<List<Message>>(0, "Use either before or after, not both.", null)));
+        }
+        return messageService.usersExist(nickname, friend).flatMap(exist -> {
+            if (!exist) {
+                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(new APIResponse<List<Message>>(0, "User or friend not found.", null)));
+            }
+            return messageService.getMessagesBetween(nickname, friend, before, after, limit)
+                    .map(messages -> messages.isEmpty()
+                            ? ResponseEntity.ok(new APIResponse<>(0, "No messages.", messages))
+                            : ResponseEntity.ok(new APIResponse<>(1, "Messages retrieved successfully!", messages)));
+        }).onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new APIResponse<List<Message>>(0, "An error occurred while retrieving messages.", null))));
+    }
+
+    // POST /messages/send: Send a message to a friend
+    @PostMapping("/messages/send")
+    public Mono<ResponseEntity<APIResponse<String>>> sendMessage(@RequestBody Message message) {
+        message.setId(messageService.generateMessageId());
+        return messageService.sendMessage(message)
+                .map(result -> ResponseEntity.ok(new APIResponse<String>(1, result, null)));
+    }
+
+    // POST /messages/send-batch: Send many messages at once, one result per message in order
+    // (every message is sent as the caller, entries naming another sender are rejected)
+    @PostMapping("/messages/send-batch")
+    public Mono<ResponseEntity<APIResponse<List<Map<String, Object>>>>> sendMessages(@AuthenticationPrincipal AuthenticatedUser user,
+                                                                                     @RequestBody List<Message> messages) {
+        if (messages.isEmpty() || messages.size() > MessageService.MAX_BATCH_SIZE) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new APIResponse<List<Map<String, Object>>>(0, "A batch must contain between 1 and " + MessageService.MAX_BATCH_SIZE + " messages.", null)));
+        }
+        return messageService.sendMessages(user.nickname(), messages).map(results -> {
+            long sent = results.stream().filter(result -> result.get("status").equals(1)).count();
+            return ResponseEntity.ok(new APIResponse<>(1, sent + " of " + messages.size() + " messages are sent.", results));
+        });
+    }
+}
@@ -0,0 +1,40 @@
+package edu.project.howudoin.controller;
+
+import edu.project.howudoin.model.SearchEntry;
+import edu.project.howudoin.security.AuthenticatedUser;
+import edu.project.howudoin.service.SearchService;
+import edu.project.howudoin.utils.APIResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@Profile("!reactive")
+public class SearchController {
+
+    @Autowired
+    private SearchService searchService;
+
+    // GET /search: Searches the caller's direct and group messages (best match first, page by page)
+    @GetMapping("/search")
+    public ResponseEntity<APIResponse<List<SearchEntry>>> search(@AuthenticationPrincipal AuthenticatedUser user,
+                                                                @RequestParam("q") String text,
+                                                                @RequestParam(value = "page", defaultValue = "0") int page,
+                                                                @RequestParam(value = "limit", required = false) Integer limit) {
+        if (text.isBlank() || page < 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new APIResponse<>(0, "Search needs some words and a page of 0 or more.", null));
+        }
+
+        List<SearchEntry> results = searchService.search(user.nickname(), text, page, limit);
+        if (results.isEmpty()) {
+            return ResponseEntity.ok(new APIResponse<>(0, "No messages.", results));
+        }
+        return ResponseEntity.ok(new APIResponse<>(1, "Messages are found.", results));
+    }
+}
@@ -0,0 +1,51 @@
+package edu.project.howudoin.controller;
+
+import edu.project.howudoin.security.AuthenticatedUser;
+import edu.project.howudoin.service.ChangeLogService;
+import edu.project.howudoin.service.UserService;
+import edu.project.howudoin.utils.APIResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@Profile("!reactive")
+public class SyncController {
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private UserService userService;
+
+    // GET /sync: Changes since the given token (messages, group messages, friend requests, friendships,
+    // group members) and the token to send next time; without a token only a token for "now" is returned
+    @GetMapping("/sync")
+    public ResponseEntity<APIResponse<Map<String, Object>>> sync(@AuthenticationPrincipal AuthenticatedUser user,
+                                                                 @RequestParam(value = "since", required = false) String since,
+                                                                 @RequestParam(value = "limit", required = false) Integer limit) {
+        if (since == null) {
+            Map<String, Object> start = Map.of("changes", List.of(), "token", changeLogService.currentToken(), "hasMore", false);
+            return ResponseEntity.ok(new APIResponse<>(1, "Sync started.", start));
+        }
+
+        Map<String, Object> changes;
+        try {
+            changes = changeLogService.changesSince(user.nickname(), userService.getGroups(user.nickname()), since, limit);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.GONE)
+                    .body(new APIResponse<>(0, "Sync token expired, reload everything.", null));
+        }
+        if (changes == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new APIResponse<>(0, "Invalid sync token.", null));
+        }
+        return ResponseEntity.ok(new APIResponse<>(1, "Changes are retrieved successfully!", changes));
+    }
+}
@@ -2,19 +2,31 @@ package edu.project.howudoin.controller;
 
 import edu.project.howudoin.model.User;
 import edu.project.howudoin.repository.UserRepository;
+import edu.project.howudoin.repository.projection.CredentialsView;
 import edu.project.howudoin.security.JwtUtil;
+import edu.project.howudoin.security.PasswordHasher;
 import edu.project.howudoin.service.UserService;
 import edu.project.howudoin.utils.APIResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 public class UserController {
+    private static final Logger log = LoggerFactory.getLogger(UserController.class);
 
     @Autowired
     private UserRepository userRepository;
@@ -25,16 +37,38 @@ public class UserController {
     @Autowired
     private JwtUtil jwtUtil;
 
-    // POST /register: Register a new user
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    // database work after hashing, so it does not hold a hashing thread
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor taskExecutor;
+
+    // POST /register: Register a new user (the password is stored as a BCrypt hash)
+    // one insert, the unique indexes on email and nickname reject duplicates even between concurrent signups
     @PostMapping("/register")
-    public ResponseEntity<APIResponse<String>> register(@RequestBody User user) {
-        int id = userService.generateUserId();
+    public CompletableFuture<ResponseEntity<APIResponse<String>>> register(@RequestBody User user) {
+        long id = userService.generateUserId();
         user.setId(id);
-        user.setFriends(new ArrayList<>());
-        user.setMessages(new ArrayList<>());
+        user.setGroups(new ArrayList<>());
 
-        String email = user.getEmail();
-        String nickname = user.getNickname();
+        return passwordHasher.encode(user.getPassword())
+                .thenApplyAsync(hash -> {
+                    user.setPassword(hash);
+                    try {
+                        userService.insertUser(user);
+                    } catch (DuplicateKeyException e) {
+                        return alreadyRegistered(user.getEmail(), user.getNickname());
+                    }
+                    return ResponseEntity.status(HttpStatus.CREATED)
+                            .body(new APIResponse<String>(1, "User is registered successfully.", null));
+                }, taskExecutor)
+                .exceptionally(UserController::failed);
+    }
+
+    // telling which of the unique fields is taken (only reached after a rejected insert)
+    private ResponseEntity<APIResponse<String>> alreadyRegistered(String email, String nickname) {
         boolean emailExists = userRepository.existsByEmail(email);
         boolean nicknameExists = userRepository.existsByNickname(nickname);
 
@@ -42,48 +76,57 @@ public class UserController {
             return ResponseEntity.ok(new APIResponse<>(0, "Both email and nickname are already registered.", null));
         } else if (emailExists) {
             return ResponseEntity.ok(new APIResponse<>(0, "Email already registered.", null));
-        } else if (nicknameExists) {
-            return ResponseEntity.ok(new APIResponse<>(0, "Nickname already registered.", null));
         } else {
-            userRepository.save(user);
-            return ResponseEntity.status(HttpStatus.CREATED)
-                    .body(new APIResponse<>(1, "User is registered successfully.", null));
+            return ResponseEntity.ok(new APIResponse<>(0, "Nickname already registered.", null));
         }
     }
 
-    // POST /login: Authenticate and login a user
+    // POST /login: Authenticate and login a user (one query by email, the hash is checked off the request thread)
     @PostMapping("/login")
-    public ResponseEntity<APIResponse<String>> login(@RequestBody User userBody) {
+    public CompletableFuture<ResponseEntity<APIResponse<String>>> login(@RequestBody User userBody) {
         String email = userBody.getEmail();
         String nickname = userBody.getNickname();
         String password = userBody.getPassword();
 
-        if (!userRepository.existsByEmail(email)) {
-            return ResponseEntity.ok(new APIResponse<>(0, "Incorrect email!", null));
+        Optional<CredentialsView> optionalCredentials = userService.getCredentials(email);
+        if (optionalCredentials.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(new APIResponse<>(0, "Incorrect email!", null)));
         }
-        else if (!userRepository.existsByNickname(nickname)) {
-            return ResponseEntity.ok(new APIResponse<>(0, "Incorrect nickname!", null));
+
+        CredentialsView user = optionalCredentials.get();
+        if (!user.getNickname().equals(nickname)) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(new APIResponse<>(0, "Email and nickname are not matched.!", null)));
         }
 
-        Optional<User> optionalUser1 = userRepository.findByEmail(email);
-        Optional<User> optionalUser2 = userRepository.findByNickname(nickname);
-        if (optionalUser1.equals(optionalUser2)) {
-            if (optionalUser1.isPresent()) {
-                User user = optionalUser1.get();
-                if (user.getPassword().equals(password)) {
+        // token generation and the upgrade trigger run on the task executor, not on a hashing thread
+        return passwordHasher.matches(password, user.getPassword())
+                .thenApplyAsync(matches -> {
+                    if (!matches) {
+                        return ResponseEntity.ok(new APIResponse<String>(0, "Incorrect password!", null));
+                    }
+                    if (passwordHasher.needsUpgrade(user.getPassword())) {
+                        upgradePassword(user.getEmail(), password);
+                    }
                     String token = jwtUtil.generateToken(user.getEmail());
                     return ResponseEntity.ok(new APIResponse<>(1, "Successfully logged in!", token));
-                } else {
-                    return ResponseEntity.ok(new APIResponse<>(0, "Incorrect password!", null));
-                }
-            } else {
-                // Should not reach here if existsByEmail is true, but just in case:
-                return ResponseEntity.ok(new APIResponse<>(0, "User not found.", null));
-            }
-        }
-        else {
-            return ResponseEntity.ok(new APIResponse<>(0, "Email and nickname are not matched.!", null));
-        }
+                }, taskExecutor)
+                .exceptionally(UserController::failed);
+    }
 
+    // replacing a plaintext password with its hash once the user has proven it, in the background
+    private void upgradePassword(String email, String password) {
+        passwordHasher.encode(password).thenAcceptAsync(hash -> userService.updatePassword(email, hash), taskExecutor);
+    }
+
+    // a full hashing queue (or task executor) means the client should retry later, anything else is a server error
+    static ResponseEntity<APIResponse<String>> failed(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new APIResponse<>(0, "Server is busy, please try again.", null));
+        }
+        log.error("Register or login failed", cause);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new APIResponse<>(0, "An error occurred, please try again.", null));
     }
 }
@@ -0,0 +1,16 @@
+package edu.project.howudoin.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Version of everything a user ("u:<nickname>") or a group ("g:<group id>") can read, raised on every write
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "change_counters")
+public class ChangeCounter {
+    private String id;
+    private long version;
+}
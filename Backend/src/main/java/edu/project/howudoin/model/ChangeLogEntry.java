@@ -0,0 +1,45 @@
+package edu.project.howudoin.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+
+// One change a client has to apply on resume, in id order. Owners say who sees it ("u:<nickname>" or
+// "g:<group id>" for every member). Only the fields of its type are set:
+//   message        - message (a direct message)
+//   group_message  - groupId, message
+//   friend_request - friendRequest
+//   friendship     - users (both friends)
+//   group_members  - groupId, users (members added, all of them when the group is created)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "change_log")
+@CompoundIndex(name = "owner_changes", def = "{'owners': 1, '_id': 1}")
+public class ChangeLogEntry {
+    public static final String MESSAGE = "message";
+    public static final String GROUP_MESSAGE = "group_message";
+    public static final String FRIEND_REQUEST = "friend_request";
+    public static final String FRIENDSHIP = "friendship";
+    public static final String GROUP_MEMBERS = "group_members";
+
+    private long id;
+    @JsonIgnore
+    private List<String> owners;
+    private String type;
+    private Message message;
+    private Long groupId;
+    private FriendRequest friendRequest;
+    private List<String> users;
+    // entries are removed after ChangeLogService.RETENTION, older sync tokens need a full reload
+    @JsonIgnore
+    @Indexed(name = "change_retention", expireAfter = "30d")
+    private Date createdAt;
+}
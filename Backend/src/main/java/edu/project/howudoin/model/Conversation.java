@@ -0,0 +1,25 @@
+package edu.project.howudoin.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One entry of a user's conversation list: a friend or a group, with its latest message
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Conversation {
+    public static final String DIRECT = "direct";
+    public static final String GROUP = "group";
+
+    private String type;
+    private String peer;
+    private Long groupId;
+    private long lastMessageId;
+    private String lastSender;
+    private String preview;
+    private LocalDateTime lastActivity;
+    private int unread;
+}
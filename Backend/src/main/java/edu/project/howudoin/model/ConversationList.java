@@ -0,0 +1,20 @@
+package edu.project.howudoin.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Conversation list of one user (id is the nickname), kept up to date on every send so that
+// the chat list is one read by _id. Keys are "u:<nickname>" and "g:<group id>", see ConversationService.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "conversation_lists")
+public class ConversationList {
+    private String id;
+    private Map<String, Conversation> conversations = new HashMap<>();
+}
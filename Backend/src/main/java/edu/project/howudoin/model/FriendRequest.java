@@ -9,7 +9,7 @@ import org.springframework.data.annotation.Id;
 @NoArgsConstructor
 @AllArgsConstructor
 public class FriendRequest {
-    private int id;
+    private long id;
     private String sender;
     private String receiver;
     private boolean isAccepted;
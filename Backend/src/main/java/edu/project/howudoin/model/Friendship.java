@@ -0,0 +1,19 @@
+package edu.project.howudoin.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// One direction of a friendship, every accepted request stores both (user -> friend) and (friend -> user)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "friendships")
+@CompoundIndex(name = "friendship_edge", def = "{'user': 1, 'friend': 1}", unique = true)
+public class Friendship {
+    private String id;
+    private String user;
+    private String friend;
+}
@@ -12,10 +12,9 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Group {
-    private int id;
+    private long id;
     private String groupName;
     private String creatorName;
     private List<String> members =  new ArrayList<>();
-    private List<Message> messages = new ArrayList<>();
     private LocalDateTime createdTime;
 }
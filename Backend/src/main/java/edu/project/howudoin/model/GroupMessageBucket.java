@@ -0,0 +1,25 @@
+package edu.project.howudoin.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Up to howudoin.groups.bucket-max-messages messages of one group sent within one fixed time span
+// (bucketStart is epoch millis, taken from the message ids); a busy span fills several buckets
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "group_message_buckets")
+@CompoundIndex(name = "group_timeline", def = "{'groupId': 1, 'bucketStart': -1}")
+public class GroupMessageBucket {
+    private String id;
+    private long groupId;
+    private long bucketStart;
+    private int count;
+    private List<Message> messages = new ArrayList<>();
+}
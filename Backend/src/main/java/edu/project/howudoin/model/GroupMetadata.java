@@ -0,0 +1,25 @@
+package edu.project.howudoin.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+// Everything about a group except its messages, with the members as a set for constant time membership checks.
+// version is the GroupMetadataCache version the snapshot was read at.
+public record GroupMetadata(long id, String groupName, String creatorName, Set<String> members,
+                            LocalDateTime createdTime, long version) {
+
+    public static GroupMetadata of(Group group, long version) {
+        return new GroupMetadata(group.getId(), group.getGroupName(), group.getCreatorName(),
+                Set.copyOf(group.getMembers()), group.getCreatedTime(), version);
+    }
+
+    public boolean isMember(String nickname) {
+        return members.contains(nickname);
+    }
+
+    // members in a stable order for responses
+    public List<String> memberList() {
+        return members.stream().sorted().toList();
+    }
+}
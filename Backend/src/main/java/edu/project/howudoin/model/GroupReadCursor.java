@@ -0,0 +1,18 @@
+package edu.project.howudoin.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Id of the last group message a member has read
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "group_read_cursors")
+public class GroupReadCursor {
+    private String id;
+    private long groupId;
+    private String member;
+    private long lastReadId;
+}
@@ -1,15 +1,31 @@
 package edu.project.howudoin.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Document(collection = "messages")
+@CompoundIndexes({
+        @CompoundIndex(name = "conversation_history", def = "{'conversationId': 1, '_id': -1}"),
+        @CompoundIndex(name = "participant_history", def = "{'participants': 1, '_id': -1}")
+})
 public class Message {
-    private int id;
+    private long id;
     private String sender;
     private String receiver;
     private String content;
+    private String conversationId;
+    @JsonIgnore
+    private List<String> participants;
+    private LocalDateTime sentTime;
 }
@@ -0,0 +1,37 @@
+package edu.project.howudoin.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TextScore;
+
+import java.time.LocalDateTime;
+
+// Searchable copy of a direct or group message for one scope, the one who may find it:
+// "u:<nickname>" for each side of a direct message (two entries), "g:<group id>" for a group message.
+// The scope is a suffix of the text index, so the access filter is applied on index entries; it is a
+// single value because a compound text index cannot hold arrays. id is the message id, key the document id.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "message_search_entries", language = "none")
+@CompoundIndex(name = "message_text", def = "{'content': 'text', 'scope': 1}")
+public class SearchEntry {
+    @Id
+    @JsonIgnore
+    private String key;
+    private long id;
+    private String sender;
+    private String receiver;
+    private Long groupId;
+    private String content;
+    private LocalDateTime sentTime;
+    @JsonIgnore
+    private String scope;
+    @TextScore
+    private Float score;
+}
@@ -3,6 +3,7 @@ package edu.project.howudoin.model;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.Indexed;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -11,13 +12,13 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
-    private int id;
+    private long id;
+    @Indexed(unique = true)
     private String nickname;
     private String name;
     private String lastname;
+    @Indexed(unique = true)
     private String email;
     private String password;
-    private List<String> friends = new ArrayList<>();
-    private List<Integer> groups = new ArrayList<>();
-    private List<Message> messages = new ArrayList<>();
+    private List<Long> groups = new ArrayList<>();
 }
@@ -5,7 +5,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
 import java.util.Optional;
 
-public interface FriendRequestRepository extends MongoRepository<FriendRequest, Integer> {
+public interface FriendRequestRepository extends MongoRepository<FriendRequest, Long> {
 
     boolean existsBySenderAndReceiver(String sender, String receiver);
 
@@ -0,0 +1,16 @@
+package edu.project.howudoin.repository;
+import edu.project.howudoin.model.Friendship;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.List;
+
+public interface FriendshipRepository extends MongoRepository<Friendship, String> {
+
+    // single lookup on the unique (user, friend) index
+    boolean existsByUserAndFriend(String user, String friend);
+
+    // friend names of a user, answered from the index prefix
+    @Query(value = "{ 'user': ?0 }", fields = "{ 'friend': 1, '_id': 0 }")
+    List<Friendship> findFriendsByUser(String user);
+}
@@ -0,0 +1,5 @@
+package edu.project.howudoin.repository;
+import edu.project.howudoin.model.GroupReadCursor;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface GroupReadCursorRepository extends MongoRepository<GroupReadCursor, String> {}
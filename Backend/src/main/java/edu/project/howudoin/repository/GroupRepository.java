@@ -1,4 +1,14 @@
 package edu.project.howudoin.repository;
 import edu.project.howudoin.model.Group;
 import org.springframework.data.mongodb.repository.MongoRepository;
-public interface GroupRepository extends MongoRepository<Group, Integer> {}
\ No newline at end of file
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface GroupRepository extends MongoRepository<Group, Long> {
+
+    // only id and name of the given groups, in one query
+    @Query(value = "{ '_id': { '$in': ?0 } }", fields = "{ 'groupName': 1 }")
+    List<Group> findNamesByIdIn(Collection<Long> ids);
+}
@@ -1,7 +1,19 @@
 package edu.project.howudoin.repository;
 import edu.project.howudoin.model.Message;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface MessageRepository extends MongoRepository<Message, Integer> {
+import java.util.List;
 
-}
\ No newline at end of file
+public interface MessageRepository extends MongoRepository<Message, Long> {
+
+    // every direct message of a user, newest first
+    List<Message> findByParticipantsOrderByIdDesc(String participant, Limit limit);
+    List<Message> findByParticipantsAndIdLessThanOrderByIdDesc(String participant, long id, Limit limit);
+    List<Message> findByParticipantsAndIdGreaterThanOrderByIdAsc(String participant, long id, Limit limit);
+
+    // messages of a single conversation, newest first
+    List<Message> findByConversationIdOrderByIdDesc(String conversationId, Limit limit);
+    List<Message> findByConversationIdAndIdLessThanOrderByIdDesc(String conversationId, long id, Limit limit);
+    List<Message> findByConversationIdAndIdGreaterThanOrderByIdAsc(String conversationId, long id, Limit limit);
+}
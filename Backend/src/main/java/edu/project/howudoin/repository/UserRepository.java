@@ -1,13 +1,19 @@
 package edu.project.howudoin.repository;
 import edu.project.howudoin.model.User;
+import edu.project.howudoin.repository.projection.CredentialsView;
+import edu.project.howudoin.repository.projection.GroupIdsView;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.Optional;
 
-public interface UserRepository extends MongoRepository<User, Integer> {
+public interface UserRepository extends MongoRepository<User, Long> {
     boolean existsByNickname(String nickname);
     Optional<User> findByNickname(String nickname);
 
     boolean existsByEmail(String email);
     Optional<User> findByEmail(String email);
-}
\ No newline at end of file
+
+    // projections, only the listed fields leave the database
+    Optional<GroupIdsView> findGroupIdsByNickname(String nickname);
+    Optional<CredentialsView> findCredentialsByEmail(String email);
+}
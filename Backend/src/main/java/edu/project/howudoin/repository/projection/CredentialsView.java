@@ -0,0 +1,8 @@
+package edu.project.howudoin.repository.projection;
+
+// Only the fields needed to log a user in
+public interface CredentialsView {
+    String getNickname();
+    String getEmail();
+    String getPassword();
+}
@@ -0,0 +1,8 @@
+package edu.project.howudoin.repository.projection;
+
+import java.util.List;
+
+// Only the group ids of a user
+public interface GroupIdsView {
+    List<Long> getGroups();
+}
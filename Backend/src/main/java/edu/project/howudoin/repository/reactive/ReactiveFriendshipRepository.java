@@ -0,0 +1,17 @@
+package edu.project.howudoin.repository.reactive;
+
+import edu.project.howudoin.model.Friendship;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface ReactiveFriendshipRepository extends ReactiveMongoRepository<Friendship, String> {
+    Mono<Boolean> existsByUserAndFriend(String user, String friend);
+
+    // the friends of a user among the given nicknames, in one query
+    @Query(value = "{ 'user': ?0, 'friend': { '$in': ?1 } }", fields = "{ 'friend': 1 }")
+    Flux<Friendship> findFriendsAmong(String user, Collection<String> candidates);
+}
@@ -0,0 +1,5 @@
+package edu.project.howudoin.repository.reactive;
+import edu.project.howudoin.model.GroupReadCursor;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReactiveGroupReadCursorRepository extends ReactiveMongoRepository<GroupReadCursor, String> {}
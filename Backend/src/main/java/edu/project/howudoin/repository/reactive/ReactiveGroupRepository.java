@@ -0,0 +1,18 @@
+package edu.project.howudoin.repository.reactive;
+import edu.project.howudoin.model.Group;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface ReactiveGroupRepository extends ReactiveMongoRepository<Group, Long> {
+
+    // only id and name of the given groups, in one query
+    @Query(value = "{ '_id': { '$in': ?0 } }", fields = "{ 'groupName': 1 }")
+    Flux<Group> findNamesByIdIn(Collection<Long> ids);
+
+    // membership check without reading the group
+    Mono<Boolean> existsByIdAndMembers(long id, String member);
+}
@@ -0,0 +1,18 @@
+package edu.project.howudoin.repository.reactive;
+import edu.project.howudoin.model.Message;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveMessageRepository extends ReactiveMongoRepository<Message, Long> {
+
+    // every direct message of a user, newest first
+    Flux<Message> findByParticipantsOrderByIdDesc(String participant, Limit limit);
+    Flux<Message> findByParticipantsAndIdLessThanOrderByIdDesc(String participant, long id, Limit limit);
+    Flux<Message> findByParticipantsAndIdGreaterThanOrderByIdAsc(String participant, long id, Limit limit);
+
+    // messages of a single conversation, newest first
+    Flux<Message> findByConversationIdOrderByIdDesc(String conversationId, Limit limit);
+    Flux<Message> findByConversationIdAndIdLessThanOrderByIdDesc(String conversationId, long id, Limit limit);
+    Flux<Message> findByConversationIdAndIdGreaterThanOrderByIdAsc(String conversationId, long id, Limit limit);
+}
@@ -0,0 +1,18 @@
+package edu.project.howudoin.repository.reactive;
+import edu.project.howudoin.model.User;
+import edu.project.howudoin.repository.projection.GroupIdsView;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, Long> {
+    Mono<Boolean> existsByNickname(String nickname);
+    Mono<GroupIdsView> findGroupIdsByNickname(String nickname);
+
+    // only the nicknames of the given users that exist, in one query
+    @Query(value = "{ 'nickname': { '$in': ?0 } }", fields = "{ 'nickname': 1 }")
+    Flux<User> findNicknamesByNicknameIn(Collection<String> nicknames);
+}
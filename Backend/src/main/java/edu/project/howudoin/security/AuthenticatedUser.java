@@ -0,0 +1,4 @@
+package edu.project.howudoin.security;
+
+// Slim principal of an authenticated request, enough to identify the caller without loading the User document
+public record AuthenticatedUser(long id, String nickname, String email) {}
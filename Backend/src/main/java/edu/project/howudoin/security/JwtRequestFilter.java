@@ -1,6 +1,5 @@
 package edu.project.howudoin.security;
 
-import edu.project.howudoin.model.User;
 import edu.project.howudoin.service.UserService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -18,6 +17,9 @@ import java.util.Collections;
 
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
+    // request attribute holding the VerifiedToken of the current request, read by the controllers
+    public static final String VERIFIED_TOKEN = "howudoin.verifiedToken";
+
     @Autowired
     private JwtUtil jwtUtil;
 
@@ -29,22 +31,21 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
 
         final String authorizationHeader = request.getHeader("Authorization");
-        String email = null;
-        String jwt = null;
+        VerifiedToken verifiedToken = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            email = jwtUtil.extractEmail(jwt);
+            verifiedToken = jwtUtil.verify(authorizationHeader.substring(7));
         }
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            User user = this.userService.getUserByEmail(email);
+        if (verifiedToken != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            AuthenticatedUser principal = this.userService.getPrincipal(verifiedToken.email());
 
-            if (user != null && jwtUtil.validateToken(jwt, user.getEmail())) {
+            if (principal != null) {
                 UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
-                        user, null, Collections.emptyList());
+                        principal, verifiedToken, Collections.emptyList());
                 auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(auth);
+                request.setAttribute(VERIFIED_TOKEN, verifiedToken);
             }
         }
 
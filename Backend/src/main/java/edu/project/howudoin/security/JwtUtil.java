@@ -1,16 +1,39 @@
 package edu.project.howudoin.security;
 
+import edu.project.howudoin.utils.ExpiringCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
     private final SecretKey secretKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(secretKey).build();
+
+    // tokens that already passed signature verification, kept until they expire
+    private final ExpiringCache<String, VerifiedToken> verifiedTokens;
+
+    // verification time, tagged with whether the signature had to be checked
+    private final Timer cachedVerifyTimer;
+    private final Timer signatureVerifyTimer;
+
+    public JwtUtil(@Value("${howudoin.jwt.cache-size:10000}") int cacheSize, MeterRegistry meterRegistry) {
+        this.verifiedTokens = new ExpiringCache<>(cacheSize);
+        this.verifiedTokens.bindTo(meterRegistry, "jwt");
+        this.cachedVerifyTimer = Timer.builder("howudoin.jwt.verify").tag("cache", "hit").register(meterRegistry);
+        this.signatureVerifyTimer = Timer.builder("howudoin.jwt.verify").tag("cache", "miss").register(meterRegistry);
+    }
 
     public String generateToken(String email) {
         return Jwts.builder()
@@ -21,21 +44,43 @@ public class JwtUtil {
                 .compact();
     }
 
-    public String extractEmail(String token) {
-        return Jwts.parserBuilder().setSigningKey(secretKey).build()
-                .parseClaimsJws(token).getBody().getSubject();
+    // parsing and verifying a token, null if it is invalid or expired
+    public VerifiedToken verify(String token) {
+        long start = System.nanoTime();
+        VerifiedToken cached = verifiedTokens.get(token);
+        if (cached != null) {
+            cachedVerifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
+        }
+
+        VerifiedToken verified = verifySignature(token);
+        signatureVerifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return verified;
     }
 
-    public boolean validateToken(String token, String email) {
-        return email.equals(extractEmail(token)) && !isTokenExpired(token);
+    private VerifiedToken verifySignature(String token) {
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (claims.getSubject() == null || claims.getExpiration() == null) {
+            return null;
+        }
+
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), claims.getExpiration().getTime());
+        verifiedTokens.put(token, verified, verified.expiresAt());
+        return verified;
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public String extractEmail(String token) {
+        VerifiedToken verified = verify(token);
+        return verified == null ? null : verified.email();
     }
 
-    private Date extractExpiration(String token) {
-        return Jwts.parserBuilder().setSigningKey(secretKey).build()
-                .parseClaimsJws(token).getBody().getExpiration();
+    public boolean validateToken(String token, String email) {
+        VerifiedToken verified = verify(token);
+        return verified != null && verified.email().equals(email);
     }
 }
@@ -0,0 +1,105 @@
+package edu.project.howudoin.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// BCrypt hashing on its own small pool, so a burst of logins queues here instead of taking CPU from
+// the request threads. When the queue is full the returned future fails with a RejectedExecutionException.
+@Component
+public class PasswordHasher implements DisposableBean {
+    private static final String BCRYPT_PREFIX = "$2";
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer queueTimer;
+    private final Timer encodeTimer;
+    private final Timer verifyTimer;
+
+    public PasswordHasher(@Value("${howudoin.auth.bcrypt-strength:10}") int strength,
+                          @Value("${howudoin.auth.hash-threads:0}") int threads,
+                          @Value("${howudoin.auth.hash-queue-size:1000}") int queueSize,
+                          @Value("${howudoin.auth.hash-budget-ms:250}") long budgetMillis,
+                          MeterRegistry meterRegistry) {
+        this.encoder = new BCryptPasswordEncoder(strength);
+
+        // half of the cores by default, the other half stays with the request threads
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        // time spent waiting for a hashing thread, and the hashing itself against the latency budget
+        Duration budget = Duration.ofMillis(budgetMillis);
+        this.queueTimer = Timer.builder("howudoin.auth.hash.queue").serviceLevelObjectives(budget).register(meterRegistry);
+        this.encodeTimer = hashTimer("encode", budget, meterRegistry);
+        this.verifyTimer = hashTimer("verify", budget, meterRegistry);
+    }
+
+    // hashing a new password
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(encodeTimer, () -> encoder.encode(rawPassword));
+    }
+
+    // checking a password against the stored value, which may still be plaintext for users
+    // registered before passwords were hashed (see needsUpgrade)
+    public CompletableFuture<Boolean> matches(String rawPassword, String storedPassword) {
+        if (rawPassword == null || storedPassword == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (needsUpgrade(storedPassword)) {
+            return CompletableFuture.completedFuture(MessageDigest.isEqual(
+                    rawPassword.getBytes(StandardCharsets.UTF_8), storedPassword.getBytes(StandardCharsets.UTF_8)));
+        }
+        return submit(verifyTimer, () -> encoder.matches(rawPassword, storedPassword));
+    }
+
+    // stored passwords that are not BCrypt hashes yet
+    public boolean needsUpgrade(String storedPassword) {
+        return !storedPassword.startsWith(BCRYPT_PREFIX);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> hashing) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queueTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return timer.record(hashing);
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Timer hashTimer(String operation, Duration budget, MeterRegistry meterRegistry) {
+        return Timer.builder("howudoin.auth.hash")
+                .tag("operation", operation)
+                .serviceLevelObjectives(budget)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,49 @@
+package edu.project.howudoin.security;
+
+import edu.project.howudoin.utils.ExpiringCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Authenticated principals by email, so JwtRequestFilter does not hit the database on every request
+@Component
+public class PrincipalCache {
+    private final ExpiringCache<String, AuthenticatedUser> principals;
+    private final long ttlMillis;
+
+    public PrincipalCache(@Value("${howudoin.auth.principal-cache-size:10000}") int maxSize,
+                          @Value("${howudoin.auth.principal-ttl-seconds:300}") long ttlSeconds,
+                          MeterRegistry meterRegistry) {
+        this.principals = new ExpiringCache<>(maxSize);
+        this.ttlMillis = ttlSeconds * 1000;
+        principals.bindTo(meterRegistry, "principal");
+    }
+
+    public AuthenticatedUser get(String email) {
+        return principals.get(email);
+    }
+
+    public void put(AuthenticatedUser principal) {
+        principals.put(principal.email(), principal, System.currentTimeMillis() + ttlMillis);
+    }
+
+    public void invalidate(String email) {
+        principals.invalidate(email);
+    }
+
+    public int size() {
+        return principals.size();
+    }
+
+    public long hitCount() {
+        return principals.hitCount();
+    }
+
+    public long missCount() {
+        return principals.missCount();
+    }
+
+    public long evictionCount() {
+        return principals.evictionCount();
+    }
+}
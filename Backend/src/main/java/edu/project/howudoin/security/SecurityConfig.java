@@ -1,14 +1,23 @@
 package edu.project.howudoin.security;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.project.howudoin.utils.APIResponse;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -21,6 +30,14 @@ public class SecurityConfig {
     @Autowired
     private JwtRequestFilter jwtRequestFilter;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -29,19 +46,44 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // Stateless sessions
                 .authorizeHttpRequests(authorize -> authorize
                         .requestMatchers("/register", "/login").permitAll() // Public endpoints
+                        .requestMatchers("/ws").permitAll() // WebSocket handshake is authenticated by JwtHandshakeInterceptor
+                        .requestMatchers("/actuator/health").permitAll() // Load balancer and orchestrator probes
+                        .requestMatchers(onManagementPort("/actuator/prometheus")).permitAll() // Scraped by monitoring on the internal port only
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // Reactive results, already authorized on the first dispatch
                         .anyRequest().authenticated() // All other endpoints require authentication
+                )
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(invalidTokenEntryPoint()) // Missing or invalid token
                 );
 
         http.addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class); // Add JWT filter
         return http.build();
     }
 
+    // requests to a path that came in on the separate management port; nothing matches when
+    // actuator shares the public port, so the metrics then need a token like every other endpoint
+    private RequestMatcher onManagementPort(String path) {
+        RequestMatcher pathMatcher = new AntPathRequestMatcher(path);
+        return request -> managementPort > 0 && managementPort != serverPort
+                && request.getLocalPort() == managementPort && pathMatcher.matches(request);
+    }
+
+    // answering unauthenticated requests the same way the controllers used to
+    private AuthenticationEntryPoint invalidTokenEntryPoint() {
+        return (request, response, exception) -> {
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), new APIResponse<>(0, "Invalid Token", null));
+        };
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:8081")); // Allow frontend origin
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS")); // Allow HTTP methods
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type")); // Allow specific headers
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "If-None-Match")); // Allow specific headers
+        configuration.setExposedHeaders(Arrays.asList("ETag")); // Let the client keep the version of polled lists
         configuration.setAllowCredentials(true); // Allow credentials (e.g., cookies or Authorization headers)
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
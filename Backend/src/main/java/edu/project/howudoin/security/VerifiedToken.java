@@ -0,0 +1,4 @@
+package edu.project.howudoin.security;
+
+// Claims of a JWT whose signature and expiry have already been checked
+public record VerifiedToken(String email, long expiresAt) {}
@@ -0,0 +1,85 @@
+package edu.project.howudoin.service;
+
+import edu.project.howudoin.model.ChangeCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Change counters behind the ETags of the polling endpoints. Counters are raised after the write they
+// describe is visible, and read before the data, so a response is never newer than its ETag claims.
+@Service
+public class ChangeCounterService {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // raising the counters of users (one bulk write)
+    public void userChanged(Collection<String> nicknames) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String nickname : nicknames) {
+            keys.add(userKey(nickname));
+        }
+        bump(keys);
+    }
+
+    public void userChanged(String nickname) {
+        bump(Set.of(userKey(nickname)));
+    }
+
+    public void groupChanged(long groupId) {
+        bump(Set.of(groupKey(groupId)));
+    }
+
+    // weak ETag of data that depends on the given users and groups, read with one query
+    public String etag(List<String> nicknames, List<Long> groupIds) {
+        List<String> keys = new ArrayList<>();
+        nicknames.forEach(nickname -> keys.add(userKey(nickname)));
+        groupIds.forEach(groupId -> keys.add(groupKey(groupId)));
+
+        Map<String, Long> versions = new HashMap<>();
+        for (ChangeCounter counter : mongoTemplate.find(new Query(Criteria.where("id").in(keys)), ChangeCounter.class)) {
+            versions.put(counter.getId(), counter.getVersion());
+        }
+
+        // the keys are part of the tag, so the same versions of different resources never match
+        StringBuilder tag = new StringBuilder("W/\"").append(Integer.toHexString(keys.hashCode()));
+        for (String key : keys) {
+            tag.append('-').append(versions.getOrDefault(key, 0L));
+        }
+        return tag.append('"').toString();
+    }
+
+    public String userEtag(String nickname) {
+        return etag(List.of(nickname), List.of());
+    }
+
+    private void bump(Set<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChangeCounter.class);
+        for (String key : keys) {
+            bulk.upsert(new Query(Criteria.where("id").is(key)), new Update().inc("version", 1));
+        }
+        bulk.execute();
+    }
+
+    static String userKey(String nickname) {
+        return "u:" + nickname;
+    }
+
+    static String groupKey(long groupId) {
+        return "g:" + groupId;
+    }
+}
@@ -0,0 +1,193 @@
+package edu.project.howudoin.service;
+
+import edu.project.howudoin.model.ChangeLogEntry;
+import edu.project.howudoin.model.FriendRequest;
+import edu.project.howudoin.model.GroupMetadata;
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.utils.IdGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Ordered log of the changes behind /sync, written by the services next to the change itself.
+// Entry ids come from IdGenerator, so concurrent writers can commit slightly out of id order: a sync token
+// does not move past the last settle-ms (unless a full page lies inside it), entries of that window are
+// returned again on the next sync and clients drop the ids they already have.
+@Service
+public class ChangeLogService {
+    public static final int MAX_SYNC_SIZE = 500;
+    public static final Duration RETENTION = Duration.ofDays(30);
+    private static final String TOKEN_PREFIX = "v1:";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Value("${howudoin.sync.settle-ms:2000}")
+    private long settleMillis;
+
+    public void directMessagesSent(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        List<ChangeLogEntry> entries = new ArrayList<>();
+        for (Message message : messages) {
+            ChangeLogEntry entry = entry(ChangeLogEntry.MESSAGE, userScope(message.getSender()), userScope(message.getReceiver()));
+            entry.setMessage(message);
+            entries.add(entry);
+        }
+        mongoTemplate.insertAll(entries);
+    }
+
+    // the same for messages that may have been logged already (replayed or retried write-behind batches):
+    // messages with an entry are skipped, a second entry would reach clients under a new id
+    public void directMessagesSentOnce(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        Set<String> senders = new HashSet<>();
+        List<Long> ids = new ArrayList<>();
+        for (Message message : messages) {
+            senders.add(userScope(message.getSender()));
+            ids.add(message.getId());
+        }
+        Query query = new Query(Criteria.where("owners").in(senders)
+                .and("type").is(ChangeLogEntry.MESSAGE)
+                .and("message.id").in(ids));
+        query.fields().include("message.id");
+
+        Set<Long> logged = new HashSet<>();
+        for (ChangeLogEntry entry : mongoTemplate.find(query, ChangeLogEntry.class)) {
+            logged.add(entry.getMessage().getId());
+        }
+        directMessagesSent(messages.stream().filter(message -> !logged.contains(message.getId())).toList());
+    }
+
+    public void groupMessageSent(GroupMetadata group, Message message) {
+        ChangeLogEntry entry = entry(ChangeLogEntry.GROUP_MESSAGE, groupScope(group.id()));
+        entry.setGroupId(group.id());
+        entry.setMessage(message);
+        mongoTemplate.insert(entry);
+    }
+
+    // new members of a group; they see it through their own scope too, since the group may not be
+    // in their group list yet when they sync
+    public void groupMembersAdded(long groupId, List<String> members) {
+        List<String> owners = new ArrayList<>();
+        owners.add(groupScope(groupId));
+        members.forEach(member -> owners.add(userScope(member)));
+        ChangeLogEntry entry = entry(ChangeLogEntry.GROUP_MEMBERS, owners.toArray(new String[0]));
+        entry.setGroupId(groupId);
+        entry.setUsers(new ArrayList<>(members));
+        mongoTemplate.insert(entry);
+    }
+
+    public void friendRequestSent(FriendRequest request) {
+        ChangeLogEntry entry = entry(ChangeLogEntry.FRIEND_REQUEST, userScope(request.getSender()), userScope(request.getReceiver()));
+        entry.setFriendRequest(request);
+        mongoTemplate.insert(entry);
+    }
+
+    public void friendshipAdded(String nickname1, String nickname2) {
+        ChangeLogEntry entry = entry(ChangeLogEntry.FRIENDSHIP, userScope(nickname1), userScope(nickname2));
+        entry.setUsers(List.of(nickname1, nickname2));
+        mongoTemplate.insert(entry);
+    }
+
+    // a token for "now", for clients that just loaded everything
+    public String currentToken() {
+        return token(settledId());
+    }
+
+    // changes visible to a user (and the given groups of the user) after the token, oldest first, with the
+    // token to continue from (null if the token is not valid, IllegalStateException if it is older than the retention)
+    public Map<String, Object> changesSince(String nickname, List<Long> groupIds, String token, Integer limit) {
+        Long since = parseToken(token);
+        if (since == null) {
+            return null;
+        }
+        if (since < IdGenerator.lowestIdAt(System.currentTimeMillis() - RETENTION.toMillis())) {
+            throw new IllegalStateException("Sync token is older than the change log");
+        }
+        int pageSize = limit == null || limit <= 0 ? MAX_SYNC_SIZE : Math.min(limit, MAX_SYNC_SIZE);
+
+        List<String> owners = new ArrayList<>();
+        owners.add(userScope(nickname));
+        for (Long groupId : groupIds) {
+            owners.add(groupScope(groupId));
+        }
+        Query query = new Query(Criteria.where("owners").in(owners).and("id").gt(since))
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .limit(pageSize + 1);
+        List<ChangeLogEntry> entries = new ArrayList<>(mongoTemplate.find(query, ChangeLogEntry.class));
+
+        boolean hasMore = entries.size() > pageSize;
+        if (hasMore) {
+            entries = new ArrayList<>(entries.subList(0, pageSize));
+        }
+        // the token stops at the settle window, so an entry committed late below a page boundary is still found;
+        // only a full page lying entirely inside the window moves past it, or a busy window would never be left
+        long last = entries.isEmpty() ? since : entries.get(entries.size() - 1).getId();
+        long next = Math.min(last, settledId());
+        if (next <= since) {
+            next = hasMore ? last : since;
+        }
+
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("changes", entries);
+        changes.put("token", token(next));
+        changes.put("hasMore", hasMore);
+        return changes;
+    }
+
+    private ChangeLogEntry entry(String type, String... owners) {
+        ChangeLogEntry entry = new ChangeLogEntry();
+        entry.setId(idGenerator.nextId());
+        entry.setOwners(List.of(owners));
+        entry.setType(type);
+        entry.setCreatedAt(new Date());
+        return entry;
+    }
+
+    // ids below this one are committed, apart from writers stalled for longer than settle-ms
+    private long settledId() {
+        return IdGenerator.lowestIdAt(System.currentTimeMillis() - settleMillis) - 1;
+    }
+
+    static String token(long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((TOKEN_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Long parseToken(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            return decoded.startsWith(TOKEN_PREFIX) ? Long.parseLong(decoded.substring(TOKEN_PREFIX.length())) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static String userScope(String nickname) {
+        return "u:" + nickname;
+    }
+
+    static String groupScope(long groupId) {
+        return "g:" + groupId;
+    }
+}
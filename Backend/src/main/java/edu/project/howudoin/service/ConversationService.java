@@ -0,0 +1,133 @@
+package edu.project.howudoin.service;
+
+import edu.project.howudoin.model.Conversation;
+import edu.project.howudoin.model.ConversationList;
+import edu.project.howudoin.model.GroupMetadata;
+import edu.project.howudoin.model.Message;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Service
+public class ConversationService {
+    public static final int PREVIEW_LENGTH = 100;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // updating the lists of both sides of a direct message (one bulk write)
+    public void directMessageSent(Message message) {
+        directMessagesSent(List.of(message));
+    }
+
+    public void directMessagesSent(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, ConversationList.class);
+        for (Message message : messages) {
+            String sender = message.getSender();
+            String receiver = message.getReceiver();
+            latest(bulk, sender, directKey(receiver), Conversation.DIRECT, receiver, null, message, false);
+            latest(bulk, receiver, directKey(sender), Conversation.DIRECT, sender, null, message, true);
+        }
+        bulk.execute();
+    }
+
+    // updating the lists of every member of a group (one bulk write, the sender's unread count is not raised)
+    public void groupMessageSent(GroupMetadata group, Message message) {
+        String key = groupKey(group.id());
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, ConversationList.class);
+        for (String member : group.members()) {
+            boolean unread = !member.equals(message.getSender());
+            latest(bulk, member, key, Conversation.GROUP, group.groupName(), group.id(), message, unread);
+        }
+        bulk.execute();
+    }
+
+    // clearing the unread count of a conversation with a friend
+    public void markDirectRead(String nickname, String peer) {
+        markRead(nickname, directKey(peer));
+    }
+
+    // clearing the unread count of a group conversation
+    public void markGroupRead(String nickname, long groupId) {
+        markRead(nickname, groupKey(groupId));
+    }
+
+    // conversations of a user, most recent first
+    public List<Conversation> getConversations(String nickname) {
+        ConversationList list = mongoTemplate.findById(nickname, ConversationList.class);
+        if (list == null) {
+            return new ArrayList<>();
+        }
+        List<Conversation> conversations = new ArrayList<>(list.getConversations().values());
+        conversations.sort(Comparator.comparing(Conversation::getLastActivity, Comparator.nullsLast(Comparator.reverseOrder())));
+        return conversations;
+    }
+
+    private void markRead(String nickname, String key) {
+        Query query = new Query(Criteria.where("id").is(nickname).and("conversations." + key).exists(true));
+        mongoTemplate.updateFirst(query, new Update().set("conversations." + key + ".unread", 0), ConversationList.class);
+    }
+
+    private static Query owner(String nickname) {
+        return new Query(Criteria.where("id").is(nickname));
+    }
+
+    // new message of one conversation: the unread count is raised unconditionally (with an upsert that creates
+    // the entry), the preview is replaced only by a newer message, so an older one arriving late (a concurrent
+    // send, or write-behind catching up) leaves it alone; a newer message also clears its sender's count
+    private static void latest(BulkOperations bulk, String owner, String key, String type, String peer, Long groupId,
+                               Message message, boolean unread) {
+        String path = "conversations." + key + ".";
+        Update entry = new Update()
+                .set(path + "type", type)
+                .set(path + "peer", peer)
+                .set(path + "groupId", groupId);
+        if (unread) {
+            entry.inc(path + "unread", 1);
+        }
+        bulk.upsert(owner(owner), entry);
+
+        Query older = new Query(Criteria.where("id").is(owner).orOperator(
+                Criteria.where(path + "lastMessageId").lt(message.getId()),
+                Criteria.where(path + "lastMessageId").exists(false)));
+        Update preview = new Update()
+                .set(path + "lastMessageId", message.getId())
+                .set(path + "lastSender", message.getSender())
+                .set(path + "preview", preview(message.getContent()))
+                .set(path + "lastActivity", message.getSentTime());
+        if (!unread) {
+            preview.set(path + "unread", 0);
+        }
+        bulk.updateOne(older, preview);
+    }
+
+    static String preview(String content) {
+        if (content == null || content.length() <= PREVIEW_LENGTH) {
+            return content;
+        }
+        int end = Character.isHighSurrogate(content.charAt(PREVIEW_LENGTH - 1)) ? PREVIEW_LENGTH - 1 : PREVIEW_LENGTH;
+        return content.substring(0, end);
+    }
+
+    // map keys become field names, so '.' and '$' in nicknames must not reach them
+    static String directKey(String nickname) {
+        return "u:" + URLEncoder.encode(nickname, StandardCharsets.UTF_8).replace(".", "%2E");
+    }
+
+    static String groupKey(long groupId) {
+        return "g:" + groupId;
+    }
+}
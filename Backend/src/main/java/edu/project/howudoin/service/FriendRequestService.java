@@ -2,6 +2,7 @@ package edu.project.howudoin.service;
 
 import edu.project.howudoin.model.FriendRequest;
 import edu.project.howudoin.repository.FriendRequestRepository;
+import edu.project.howudoin.utils.IdGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -14,10 +15,14 @@ public class FriendRequestService {
     private FriendRequestRepository friendRequestRepository;
     @Autowired
     private UserService userService;
+    @Autowired
+    private IdGenerator idGenerator;
+    @Autowired
+    private ChangeLogService changeLogService;
 
     // generating id
-    public int generateRequestId(){
-        return (int) friendRequestRepository.count();
+    public long generateRequestId(){
+        return idGenerator.nextId();
     }
 
     // checking if friend request exists or not
@@ -68,6 +73,7 @@ public class FriendRequestService {
                 return "This receiver already sent an request to you. You can accept the request.";
             } else {
                 friendRequestRepository.save(request);
+                changeLogService.friendRequestSent(request);
                 return "Request has been sent.";
             }
         }
@@ -78,7 +84,6 @@ public class FriendRequestService {
         FriendRequest request;
         request = friendRequestRepository.findBySenderAndReceiver(senderNickname, receiverNickname).get();
 
-        friendRequestRepository.delete(request);
         request.setAccepted(true);
         friendRequestRepository.save(request);
 
@@ -0,0 +1,50 @@
+package edu.project.howudoin.service;
+
+import edu.project.howudoin.model.GroupMetadata;
+import edu.project.howudoin.utils.ExpiringCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Group metadata by group id, so group lookups and membership checks do not hit the database on every request.
+// Every invalidation moves the version forward, and a snapshot read at an older version is never kept,
+// so a load racing with addMember/saveGroup cannot put the old member set back.
+// The expiry bounds how long another instance's changes stay invisible.
+@Component
+public class GroupMetadataCache {
+    private final ExpiringCache<Long, GroupMetadata> groups;
+    private final long ttlMillis;
+    private final AtomicLong version = new AtomicLong();
+
+    public GroupMetadataCache(@Value("${howudoin.groups.metadata-cache-size:10000}") int maxSize,
+                              @Value("${howudoin.groups.metadata-ttl-seconds:60}") long ttlSeconds,
+                              MeterRegistry meterRegistry) {
+        this.groups = new ExpiringCache<>(maxSize);
+        this.ttlMillis = ttlSeconds * 1000;
+        groups.bindTo(meterRegistry, "group");
+    }
+
+    // version to pass to GroupMetadata.of, read before loading the group
+    public long version() {
+        return version.get();
+    }
+
+    public GroupMetadata get(long groupId) {
+        return groups.get(groupId);
+    }
+
+    public void put(GroupMetadata metadata) {
+        groups.put(metadata.id(), metadata, System.currentTimeMillis() + ttlMillis);
+        // an invalidation happened since the load, the snapshot may be older than the database
+        if (metadata.version() != version.get()) {
+            groups.invalidate(metadata.id());
+        }
+    }
+
+    public void invalidate(long groupId) {
+        version.incrementAndGet();
+        groups.invalidate(groupId);
+    }
+}
@@ -1,14 +1,31 @@
 package edu.project.howudoin.service;
 
 import edu.project.howudoin.model.Group;
+import edu.project.howudoin.model.GroupMessageBucket;
+import edu.project.howudoin.model.GroupMetadata;
+import edu.project.howudoin.model.GroupReadCursor;
 import edu.project.howudoin.model.Message;
+import edu.project.howudoin.repository.GroupReadCursorRepository;
 import edu.project.howudoin.repository.GroupRepository;
-import edu.project.howudoin.repository.MessageRepository;
+import edu.project.howudoin.utils.IdGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
 public class GroupService {
@@ -17,62 +34,227 @@ public class GroupService {
     @Autowired
     private GroupRepository groupRepository;
     @Autowired
-    private MessageRepository messageRepository;
+    private GroupReadCursorRepository groupReadCursorRepository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private IdGenerator idGenerator;
+    @Autowired
+    private MessagePushService messagePushService;
+    @Autowired
+    private MessageMetrics messageMetrics;
+    @Autowired
+    private ConversationService conversationService;
+    @Autowired
+    private SearchService searchService;
+    @Autowired
+    private ChangeCounterService changeCounterService;
+    @Autowired
+    private ChangeLogService changeLogService;
+    @Autowired
+    private GroupMetadataCache groupMetadataCache;
+
+    @Value("${howudoin.groups.bucket-span-minutes:60}")
+    private long bucketSpanMinutes;
+    @Value("${howudoin.groups.bucket-max-messages:200}")
+    private int bucketMaxMessages;
 
     // generating id
-    public int generateGroupId(){
-        return (int) groupRepository.count();
+    public long generateGroupId(){
+        return idGenerator.nextId();
     }
 
     // generating message id
-    public int generateMessageId(){
-        return (int) messageRepository.count();
+    public long generateMessageId(){
+        return idGenerator.nextId();
     }
 
     // saving group to database
     public void saveGroup(Group group) {
         groupRepository.save(group);
+        groupMetadataCache.invalidate(group.getId());
+        changeLogService.groupMembersAdded(group.getId(), group.getMembers());
     }
 
-    // getting group by id
-    public Group getGroup(int groupId) {
-        return groupRepository.findById(groupId).get();
+    // getting group metadata by id, null if there is no such group
+    public GroupMetadata getGroup(long groupId) {
+        GroupMetadata metadata = groupMetadataCache.get(groupId);
+        if (metadata != null) {
+            return metadata;
+        }
+        long version = groupMetadataCache.version();
+        Group group = groupRepository.findById(groupId).orElse(null);
+        if (group == null) {
+            return null;
+        }
+        metadata = GroupMetadata.of(group, version);
+        groupMetadataCache.put(metadata);
+        return metadata;
     }
 
     // adding member to group
-    public void addMember(Group group, String memberName) {
-        groupRepository.delete(group);
-        group.getMembers().add(memberName);
-        groupRepository.save(group);
+    public void addMember(long groupId, String memberName) {
+        mongoTemplate.updateFirst(byId(groupId), new Update().addToSet("members", memberName), Group.class);
+        groupMetadataCache.invalidate(groupId);
+        changeCounterService.groupChanged(groupId);
+        changeLogService.groupMembersAdded(groupId, List.of(memberName));
     }
 
-    // sending message to group
-    public void sendMessage(Group group, Message message) {
-        groupRepository.delete(group);
-        group.getMessages().add(message);
-        groupRepository.save(group);
-        messageRepository.save(message);
+    // sending message to group (appended to a bucket of the time span of its id, the group document is not touched)
+    public void sendMessage(GroupMetadata group, Message message) {
+        message.setSentTime(LocalDateTime.now());
+        mongoTemplate.upsert(openBucket(group.id(), bucketStart(message.getId()), bucketMaxMessages), append(message),
+                GroupMessageBucket.class);
+        conversationService.groupMessageSent(group, message);
+        searchService.indexGroupMessage(group, message);
+        changeCounterService.groupChanged(group.id());
+        changeLogService.groupMessageSent(group, message);
+
+        messagePushService.pushGroup(group.id(), group.members(), message);
+        messageMetrics.groupMessageSent(group.members().size());
+    }
+
+    // getting messages of a group, one page (oldest first) before or after a message id
+    public List<Message> getMessages(long groupId, Long before, Long after, Integer limit) {
+        int pageSize = MessageService.pageSize(limit);
+        boolean forward = after != null;
+
+        // time spans are disjoint, so buckets are read span by span until the page is full
+        // (every bucket of a span is read, a busy span has several and they are not ordered by id)
+        List<Message> messages = new ArrayList<>();
+        Query query = bucketQuery(groupId, before, after, bucketSpanMinutes, pageSize);
+        try (Stream<GroupMessageBucket> buckets = mongoTemplate.stream(query, GroupMessageBucket.class)) {
+            Iterator<GroupMessageBucket> iterator = buckets.iterator();
+            long span = Long.MIN_VALUE;
+            while (iterator.hasNext()) {
+                GroupMessageBucket bucket = iterator.next();
+                if (messages.size() >= pageSize && bucket.getBucketStart() != span) {
+                    break;
+                }
+                span = bucket.getBucketStart();
+                messages.addAll(matching(bucket, before, after));
+            }
+        }
+        return page(messages, forward, pageSize);
+    }
+
+    // saving the read position of a member (never moves backwards)
+    public void markRead(long groupId, String member, long messageId) {
+        Query query = new Query(Criteria.where("id").is(readCursorId(groupId, member)));
+        Update update = new Update()
+                .setOnInsert("groupId", groupId)
+                .setOnInsert("member", member)
+                .max("lastReadId", messageId);
+        mongoTemplate.upsert(query, update, GroupReadCursor.class);
+        conversationService.markGroupRead(member, groupId);
+        changeCounterService.userChanged(member);
+    }
+
+    // getting the read position of a member, 0 if nothing was read yet
+    public long getReadPosition(long groupId, String member) {
+        return groupReadCursorRepository.findById(readCursorId(groupId, member))
+                .map(GroupReadCursor::getLastReadId)
+                .orElse(0L);
     }
 
     // checking if a member is in a group or not
-    public boolean memberCheck(int groupId, String memberName) {
-        Group group = groupRepository.findById(groupId).get();
-        return group.getMembers().contains(memberName);
+    public boolean memberCheck(long groupId, String memberName) {
+        GroupMetadata group = getGroup(groupId);
+        return group != null && group.isMember(memberName);
     }
 
     // getting groups of a user
-    public List<Integer> getGroups(String nickname) {
+    public List<Long> getGroups(String nickname) {
         return userService.getGroups(nickname);
     }
 
-    // getting group names of a user
-    public List<String> getGroupNames(String nickname) {
-        List<Integer> groupIds = getGroups(nickname);
-        List<String> groupNames = new ArrayList<>();
-        for (Integer groupId : groupIds) {
-            Group group = groupRepository.findById(groupId).get();
-            groupNames.add(group.getGroupName());
+    // getting id and name of every group of a user (two queries, whatever the number of groups)
+    public List<Group> getGroupSummaries(String nickname) {
+        List<Long> groupIds = getGroups(nickname);
+        Map<Long, Group> groupsById = new HashMap<>();
+        for (Group group : groupRepository.findNamesByIdIn(groupIds)) {
+            groupsById.put(group.getId(), group);
         }
-        return groupNames;
+
+        List<Group> summaries = new ArrayList<>();
+        for (Long groupId : groupIds) {
+            Group group = groupsById.get(groupId);
+            if (group != null) {
+                summaries.add(group);
+            }
+        }
+        return summaries;
+    }
+
+    private Query byId(long groupId) {
+        return new Query(Criteria.where("id").is(groupId));
+    }
+
+    private long bucketStart(long messageId) {
+        return bucketStart(messageId, bucketSpanMinutes);
+    }
+
+    // start of the time bucket a message id belongs to
+    public static long bucketStart(long messageId, long bucketSpanMinutes) {
+        long span = bucketSpanMinutes * 60_000;
+        return IdGenerator.timestampOf(messageId) / span * span;
+    }
+
+    // a bucket of the time span that still has room; when every bucket of the span is full
+    // nothing matches and the upsert starts a new one, so no bucket grows past maxMessages
+    static Query openBucket(long groupId, long bucketStart, int maxMessages) {
+        return new Query(Criteria.where("groupId").is(groupId)
+                .and("bucketStart").is(bucketStart)
+                .and("count").lt(maxMessages));
+    }
+
+    static Update append(Message message) {
+        return new Update().inc("count", 1).push("messages", message);
+    }
+
+    // buckets that can hold messages before/after the given ids, in reading order
+    // (a message id never lies in a bucket later than the bucket of its own timestamp).
+    // Messages are appended in send order, so the latest page only needs the tail of each bucket.
+    static Query bucketQuery(long groupId, Long before, Long after, long bucketSpanMinutes, int pageSize) {
+        boolean forward = after != null;
+        Criteria criteria = Criteria.where("groupId").is(groupId);
+        if (forward) {
+            criteria = criteria.and("bucketStart").gte(bucketStart(after, bucketSpanMinutes));
+        } else if (before != null) {
+            criteria = criteria.and("bucketStart").lte(bucketStart(before, bucketSpanMinutes));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(forward ? Sort.Direction.ASC : Sort.Direction.DESC, "bucketStart"))
+                .cursorBatchSize(2);
+        if (!forward && before == null) {
+            query.fields().slice("messages", -pageSize);
+        }
+        return query;
+    }
+
+    // messages of a bucket that belong to the requested page
+    static List<Message> matching(GroupMessageBucket bucket, Long before, Long after) {
+        List<Message> messages = new ArrayList<>();
+        for (Message message : bucket.getMessages()) {
+            if (after != null ? message.getId() > after : (before == null || message.getId() < before)) {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    // cutting the collected messages down to one page, oldest first
+    static List<Message> page(List<Message> messages, boolean forward, int pageSize) {
+        Comparator<Message> byId = Comparator.comparingLong(Message::getId);
+        messages.sort(forward ? byId : byId.reversed());
+        List<Message> page = new ArrayList<>(messages.subList(0, Math.min(pageSize, messages.size())));
+        if (!forward) {
+            Collections.reverse(page);
+        }
+        return page;
+    }
+
+    static String readCursorId(long groupId, String member) {
+        return groupId + ":" + member;
     }
 }
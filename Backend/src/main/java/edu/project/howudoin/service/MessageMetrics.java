@@ -0,0 +1,40 @@
+package edu.project.howudoin.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+// Message flow meters: messages accepted per type, group fan-out, open push sessions and dropped pushes
+@Component
+public class MessageMetrics {
+    private final Counter directMessages;
+    private final Counter groupMessages;
+    private final DistributionSummary groupFanout;
+
+    public MessageMetrics(MeterRegistry meterRegistry, MessagePushService messagePushService) {
+        this.directMessages = Counter.builder("howudoin.messages.sent").tag("type", "direct").register(meterRegistry);
+        this.groupMessages = Counter.builder("howudoin.messages.sent").tag("type", "group").register(meterRegistry);
+        this.groupFanout = DistributionSummary.builder("howudoin.group.fanout")
+                .description("Members a group message is delivered to")
+                .baseUnit("members")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("howudoin.push.sessions", messagePushService, MessagePushService::getSessionCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("howudoin.push.dropped", messagePushService, MessagePushService::getDroppedPushes)
+                .description("Pushes dropped because the push queue was full")
+                .register(meterRegistry);
+    }
+
+    public void directMessageSent() {
+        directMessages.increment();
+    }
+
+    public void groupMessageSent(int members) {
+        groupMessages.increment();
+        groupFanout.record(members);
+    }
+}
@@ -0,0 +1,188 @@
+package edu.project.howudoin.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.project.howudoin.model.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Keeps the open WebSocket sessions of every user and pushes newly accepted messages to them.
+// Each session is wrapped in a ConcurrentWebSocketSessionDecorator, so a slow client can buffer at most
+// bufferSizeLimit bytes or block a send for sendTimeLimit ms before its session is closed.
+// The fan-out runs on its own small pool: senders only enqueue, and when the queue is full the push is
+// dropped (counted in getDroppedPushes), clients still get the message from history or /sync.
+@Service
+public class MessagePushService implements InitializingBean, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(MessagePushService.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${howudoin.push.send-time-limit-ms:5000}")
+    private int sendTimeLimit;
+    @Value("${howudoin.push.buffer-size-limit:65536}")
+    private int bufferSizeLimit;
+    @Value("${howudoin.push.max-sessions:50000}")
+    private int maxSessions;
+    @Value("${howudoin.push.threads:2}")
+    private int pushThreads;
+    @Value("${howudoin.push.queue-size:10000}")
+    private int pushQueueSize;
+
+    private ThreadPoolExecutor executor;
+    private final AtomicLong droppedPushes = new AtomicLong();
+
+    private final Map<String, Set<WebSocketSession>> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+    @Override
+    public void afterPropertiesSet() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(pushThreads, pushThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(pushQueueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "message-push-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> droppedPushes.incrementAndGet());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    // registering a new session of a user, false if the node is already at its session limit
+    public boolean register(String nickname, WebSocketSession session) {
+        if (sessionCount.incrementAndGet() > maxSessions) {
+            sessionCount.decrementAndGet();
+            return false;
+        }
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimit, bufferSizeLimit);
+        // added inside the map operation, so it cannot land in a set that unregister is dropping
+        sessions.compute(nickname, (key, userSessions) -> {
+            Set<WebSocketSession> updated = userSessions != null ? userSessions : ConcurrentHashMap.newKeySet();
+            updated.add(decorated);
+            return updated;
+        });
+        return true;
+    }
+
+    // removing a closed session (the set of the user is dropped in the same map operation once it is empty)
+    public void unregister(String nickname, WebSocketSession session) {
+        AtomicBoolean removed = new AtomicBoolean();
+        sessions.computeIfPresent(nickname, (key, userSessions) -> {
+            removed.set(userSessions.removeIf(decorated -> decorated.getId().equals(session.getId())));
+            return userSessions.isEmpty() ? null : userSessions;
+        });
+        if (removed.get()) {
+            sessionCount.decrementAndGet();
+        }
+    }
+
+    public int getSessionCount() {
+        return sessionCount.get();
+    }
+
+    public long getDroppedPushes() {
+        return droppedPushes.get();
+    }
+
+    // pushing a direct message to both sides of the conversation (queued, sent by the push pool)
+    public void pushDirect(Message message) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", "direct");
+        payload.put("message", message);
+        push(List.of(message.getSender(), message.getReceiver()), payload);
+    }
+
+    // pushing a group message to every member of the group (queued, sent by the push pool)
+    public void pushGroup(long groupId, Collection<String> members, Message message) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", "group");
+        payload.put("groupId", groupId);
+        payload.put("message", message);
+        push(members, payload);
+    }
+
+    // pinging every session, so dead connections are noticed and dropped
+    @Scheduled(fixedDelayString = "${howudoin.push.heartbeat-ms:30000}")
+    public void heartbeat() {
+        PingMessage ping = new PingMessage();
+        sessions.forEach((nickname, userSessions) -> {
+            for (WebSocketSession session : userSessions) {
+                send(nickname, session, ping);
+            }
+        });
+    }
+
+    private void push(Collection<String> nicknames, Map<String, Object> payload) {
+        executor.execute(() -> fanOut(nicknames, payload));
+    }
+
+    private void fanOut(Collection<String> nicknames, Map<String, Object> payload) {
+        TextMessage text;
+        try {
+            // serialized once, shared by every recipient session
+            text = new TextMessage(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            log.error("Message could not be serialized for push.", e);
+            return;
+        }
+
+        for (String nickname : nicknames) {
+            Set<WebSocketSession> userSessions = sessions.get(nickname);
+            if (userSessions == null) {
+                continue;
+            }
+            for (WebSocketSession session : userSessions) {
+                send(nickname, session, text);
+            }
+        }
+    }
+
+    private void send(String nickname, WebSocketSession session, WebSocketMessage<?> message) {
+        if (!session.isOpen()) {
+            unregister(nickname, session);
+            return;
+        }
+        try {
+            session.sendMessage(message);
+        } catch (IOException | RuntimeException e) {
+            // slow consumer (buffer or time limit exceeded) or broken connection
+            unregister(nickname, session);
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException ignored) {
+                // already closed
+            }
+        }
+    }
+}
@@ -1,62 +1,111 @@
 package edu.project.howudoin.service;
 
 import edu.project.howudoin.model.Message;
-import edu.project.howudoin.model.User;
 import edu.project.howudoin.repository.MessageRepository;
+import edu.project.howudoin.utils.IdGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class MessageService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int MAX_BATCH_SIZE = 500;
+
     @Autowired
     private MessageRepository messageRepository;
     @Autowired
     private UserService userService;
+    @Autowired
+    private IdGenerator idGenerator;
+    @Autowired
+    private MessagePushService messagePushService;
+    @Autowired
+    private MessageMetrics messageMetrics;
+    @Autowired
+    private ConversationService conversationService;
+    @Autowired
+    private SearchService searchService;
+    @Autowired
+    private ChangeCounterService changeCounterService;
+    @Autowired
+    private ChangeLogService changeLogService;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    // only present in write-behind mode
+    @Autowired(required = false)
+    private MessageWriteBehind messageWriteBehind;
 
     // generating id
-    public int generateMessageId(){
-        return (int) messageRepository.count();
+    public long generateMessageId(){
+        return idGenerator.nextId();
     }
 
-    // getting messages of a user
-    public List<Message> getMessages(User user) {
-        return user.getMessages();
+    // conversation id of two users, same for both directions
+    // (length prefixed so that nicknames containing ':' cannot collide)
+    public static String conversationId(String nickname1, String nickname2) {
+        String first = nickname1.compareTo(nickname2) <= 0 ? nickname1 : nickname2;
+        String second = first.equals(nickname1) ? nickname2 : nickname1;
+        return first.length() + ":" + first + ":" + second;
     }
 
-    // getting messages between two users
-    public List<Message> getMessagesBetween(User user1, User user2) {
-        List<Message> messages = getMessages(user1);
-        List<Message> filteredMessages = new ArrayList<>();
+    // getting messages of a user, one page (oldest first) before or after a message id
+    public List<Message> getMessages(String nickname, Long before, Long after, Integer limit) {
+        Limit pageSize = Limit.of(pageSize(limit));
+        if (after != null) {
+            return messageRepository.findByParticipantsAndIdGreaterThanOrderByIdAsc(nickname, after, pageSize);
+        }
+        if (before != null) {
+            return oldestFirst(messageRepository.findByParticipantsAndIdLessThanOrderByIdDesc(nickname, before, pageSize));
+        }
+        return oldestFirst(messageRepository.findByParticipantsOrderByIdDesc(nickname, pageSize));
+    }
 
-        for (Message message : messages) {
-            if ((message.getSender().equals(user1.getNickname()) && message.getReceiver().equals(user2.getNickname())) ||
-                    (message.getSender().equals(user2.getNickname()) && message.getReceiver().equals(user1.getNickname()))) {
-                filteredMessages.add(message);
-            }
+    // getting messages between two users, one page (oldest first) before or after a message id
+    public List<Message> getMessagesBetween(String nickname1, String nickname2, Long before, Long after, Integer limit) {
+        String conversationId = conversationId(nickname1, nickname2);
+        Limit pageSize = Limit.of(pageSize(limit));
+        if (after != null) {
+            return messageRepository.findByConversationIdAndIdGreaterThanOrderByIdAsc(conversationId, after, pageSize);
+        }
+        if (before != null) {
+            return oldestFirst(messageRepository.findByConversationIdAndIdLessThanOrderByIdDesc(conversationId, before, pageSize));
         }
-        return filteredMessages;
+        return oldestFirst(messageRepository.findByConversationIdOrderByIdDesc(conversationId, pageSize));
     }
 
     // sending message
     public String sendMessage(Message message) {
         String sender = message.getSender();
         String receiver = message.getReceiver();
-        boolean receiverCheck = userService.userCheck(receiver);
 
-        if (!receiverCheck) {
+        // a friendship edge implies that the receiver exists, so the common case is a single indexed lookup
+        boolean friends = userService.isFriend(sender, receiver);
+
+        if (!friends && !userService.userCheck(receiver)) {
             return "There is no user that named " + receiver + ".";
         }
         else {
-            User senderUser = userService.getUser(sender);
-            User receiverUser = userService.getUser(receiver);
-
-            if (senderUser.getFriends().contains(receiver) && receiverUser.getFriends().contains(sender)) {
-                System.out.println("Message sent.");
-                messageRepository.save(message);
-                userService.saveMessage(message);
+            if (friends) {
+                message.setConversationId(conversationId(sender, receiver));
+                message.setParticipants(List.of(sender, receiver));
+                message.setSentTime(LocalDateTime.now());
+                store(message);
+                conversationService.directMessageSent(message);
+                messagePushService.pushDirect(message);
+                messageMetrics.directMessageSent();
                 return "Message is sent.";
             }
             else {
@@ -64,4 +113,109 @@ public class MessageService {
             }
         }
     }
+
+    // sending many messages of one sender at once (offline queues): one friendship query, one user query for the
+    // rejected receivers and one bulk insert, whatever the number of messages.
+    // Every message gets a result with its id (0 if it was not sent), status and the sendMessage text, in request order.
+    // Messages without a sender are sent as the given sender, messages naming someone else are rejected.
+    public List<Map<String, Object>> sendMessages(String sender, List<Message> messages) {
+        Set<String> receivers = new HashSet<>();
+        for (Message message : messages) {
+            if (message.getSender() == null) {
+                message.setSender(sender);
+            }
+            receivers.add(message.getReceiver());
+        }
+        Set<String> friends = userService.getFriendsAmong(Set.of(sender), receivers).getOrDefault(sender, Set.of());
+
+        Set<String> notFriends = new HashSet<>();
+        for (Message message : messages) {
+            if (!friends.contains(message.getReceiver())) {
+                notFriends.add(message.getReceiver());
+            }
+        }
+        Set<String> existing = notFriends.isEmpty() ? Set.of() : userService.getExistingNicknames(notFriends);
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        List<Message> accepted = new ArrayList<>();
+        for (Message message : messages) {
+            String receiver = message.getReceiver();
+            if (!sender.equals(message.getSender())) {
+                results.add(batchResult(0L, 0, "Message could not be sent. You can only send messages as yourself."));
+            } else if (friends.contains(receiver)) {
+                message.setId(generateMessageId());
+                message.setConversationId(conversationId(sender, receiver));
+                message.setParticipants(List.of(sender, receiver));
+                message.setSentTime(LocalDateTime.now());
+                accepted.add(message);
+                results.add(batchResult(message.getId(), 1, "Message is sent."));
+            } else {
+                results.add(batchResult(0L, 0, existing.contains(receiver)
+                        ? "Message could not be sent. You are not friend with this receiver."
+                        : "There is no user that named " + receiver + "."));
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            if (messageWriteBehind != null) {
+                messageWriteBehind.acceptAll(accepted);
+            } else {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Message.class).insert(accepted).execute();
+                searchService.indexDirectMessages(accepted);
+                changeCounterService.userChanged(participants(accepted));
+                changeLogService.directMessagesSent(accepted);
+            }
+            conversationService.directMessagesSent(accepted);
+            for (Message message : accepted) {
+                messagePushService.pushDirect(message);
+                messageMetrics.directMessageSent();
+            }
+        }
+        return results;
+    }
+
+    // saving and indexing a message, or handing it to the write-behind log (which does the same) when that mode is on
+    private void store(Message message) {
+        if (messageWriteBehind != null) {
+            messageWriteBehind.accept(message);
+        } else {
+            messageRepository.save(message);
+            searchService.indexDirectMessage(message);
+            changeCounterService.userChanged(message.getParticipants());
+            changeLogService.directMessagesSent(List.of(message));
+        }
+    }
+
+    // result of one message of a batch
+    static Map<String, Object> batchResult(long id, int status, String message) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", id);
+        result.put("status", status);
+        result.put("message", message);
+        return result;
+    }
+
+    // senders and receivers of some messages
+    static Set<String> participants(List<Message> messages) {
+        Set<String> participants = new HashSet<>();
+        for (Message message : messages) {
+            participants.add(message.getSender());
+            participants.add(message.getReceiver());
+        }
+        return participants;
+    }
+
+    // page size asked by the client, bounded by MAX_PAGE_SIZE
+    public static int pageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private List<Message> oldestFirst(List<Message> newestFirst) {
+        List<Message> messages = new ArrayList<>(newestFirst);
+        Collections.reverse(messages);
+        return messages;
+    }
 }
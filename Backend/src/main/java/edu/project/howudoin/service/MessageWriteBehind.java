@@ -0,0 +1,233 @@
+package edu.project.howudoin.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.utils.AppendLog;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Write-behind ingestion of direct messages (howudoin.ingest.write-behind=true).
+// An accepted message is appended to a local AppendLog and acknowledged; a background batcher stores the
+// queued messages in MongoDB with ordered bulk writes, indexes them for search and then releases them from
+// the log. Messages still in the log after a crash are written at the next start, before new messages are
+// taken. The writes are upserts by id, so a message that was stored just before the crash is not duplicated.
+// History reads see a message once its batch is flushed (at most max-delay-ms plus the write later).
+@Service
+@ConditionalOnProperty(name = "howudoin.ingest.write-behind", havingValue = "true")
+public class MessageWriteBehind implements InitializingBean, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(MessageWriteBehind.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private SearchService searchService;
+    @Autowired
+    private ChangeCounterService changeCounterService;
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Value("${howudoin.ingest.log-dir:data/message-log}")
+    private String logDirectory;
+    @Value("${howudoin.ingest.segment-size-mb:64}")
+    private int segmentSizeMb;
+    @Value("${howudoin.ingest.sync-on-append:false}")
+    private boolean syncOnAppend;
+    @Value("${howudoin.ingest.batch-size:500}")
+    private int batchSize;
+    @Value("${howudoin.ingest.max-delay-ms:20}")
+    private long maxDelayMillis;
+    @Value("${howudoin.ingest.queue-capacity:100000}")
+    private int queueCapacity;
+    @Value("${howudoin.ingest.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMillis;
+
+    private AppendLog appendLog;
+    private BlockingQueue<Pending> queue;
+    private Thread batcher;
+    private Timer flushTimer;
+    private volatile boolean running;
+
+    @Override
+    public void afterPropertiesSet() {
+        appendLog = new AppendLog(Path.of(logDirectory), segmentSizeMb * 1024 * 1024, syncOnAppend);
+        int replayed = appendLog.replay(batchSize, records -> {
+            List<Message> messages = new ArrayList<>();
+            for (byte[] record : records) {
+                messages.add(fromRecord(record));
+            }
+            // the previous run may have stored some of them before it stopped
+            write(messages, true);
+        });
+        if (replayed > 0) {
+            log.info("Replayed {} messages from the write-behind log", replayed);
+        }
+
+        // a full queue blocks the senders, the database is not keeping up
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        flushTimer = Timer.builder("howudoin.ingest.flush").register(meterRegistry);
+        Gauge.builder("howudoin.ingest.pending", queue, BlockingQueue::size).register(meterRegistry);
+
+        running = true;
+        batcher = new Thread(this::runBatcher, "message-write-behind");
+        batcher.start();
+    }
+
+    // appending a message to the log and queueing it for the database, returns once it is durable locally
+    public void accept(Message message) {
+        long segment = appendLog.append(toRecord(message));
+        try {
+            queue.put(new Pending(message, segment));
+        } catch (InterruptedException e) {
+            // already in the log, the next start writes it
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void acceptAll(List<Message> messages) {
+        for (Message message : messages) {
+            accept(message);
+        }
+    }
+
+    // flushing what is queued and closing the log; while the database is unreachable the batcher gives up
+    // instead, and after shutdown-timeout-ms the log is closed anyway, what is not written is replayed at the next start
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        batcher.join(shutdownTimeoutMillis);
+        if (batcher.isAlive()) {
+            log.warn("Write-behind batcher did not stop within {} ms, closing the log with {} messages queued",
+                    shutdownTimeoutMillis, queue.size());
+        }
+        appendLog.close();
+    }
+
+    private void runBatcher() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(maxDelayMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+                while (batch.size() < batchSize) {
+                    Pending next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                if (!flush(batch)) {
+                    return;
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // writing a batch until it succeeds (the messages stay in the log meanwhile), then releasing it;
+    // false if it failed while stopping, the batch is then left unreleased in the log
+    private boolean flush(List<Pending> batch) throws InterruptedException {
+        List<Message> messages = new ArrayList<>(batch.size());
+        Map<Long, Integer> perSegment = new HashMap<>();
+        for (Pending pending : batch) {
+            messages.add(pending.message());
+            perSegment.merge(pending.segment(), 1, Integer::sum);
+        }
+
+        long backoff = 100;
+        boolean retry = false;
+        while (true) {
+            try {
+                boolean repeated = retry;
+                flushTimer.record(() -> write(messages, repeated));
+                break;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    log.warn("Write-behind flush of {} messages failed while stopping, {} more are queued; "
+                            + "they stay in the log for the next start", messages.size(), queue.size(), e);
+                    return false;
+                }
+                log.warn("Write-behind flush of {} messages failed, retrying in {} ms", messages.size(), backoff, e);
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, 5000);
+                retry = true;
+            }
+        }
+        perSegment.forEach(appendLog::release);
+        return true;
+    }
+
+    // storing messages and their side effects; everything but the change log is idempotent, so a repeated
+    // write (replay or retry) first checks which messages it already logged
+    private void write(List<Message> messages, boolean repeated) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Message.class);
+        for (Message message : messages) {
+            bulk.replaceOne(new Query(Criteria.where("id").is(message.getId())), message, FindAndReplaceOptions.options().upsert());
+        }
+        bulk.execute();
+        searchService.indexDirectMessages(messages);
+        changeCounterService.userChanged(MessageService.participants(messages));
+        if (repeated) {
+            changeLogService.directMessagesSentOnce(messages);
+        } else {
+            changeLogService.directMessagesSent(messages);
+        }
+    }
+
+    private byte[] toRecord(Message message) {
+        try {
+            return objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // participants are not part of the JSON form, they are the two sides of the conversation
+    private Message fromRecord(byte[] record) {
+        try {
+            Message message = objectMapper.readValue(record, Message.class);
+            message.setParticipants(List.of(message.getSender(), message.getReceiver()));
+            return message;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Pending(Message message, long segment) {}
+}
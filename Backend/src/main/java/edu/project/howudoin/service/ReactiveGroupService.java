@@ -0,0 +1,176 @@
+package edu.project.howudoin.service;
+
+import edu.project.howudoin.model.Group;
+import edu.project.howudoin.model.GroupMessageBucket;
+import edu.project.howudoin.model.GroupReadCursor;
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.model.User;
+import edu.project.howudoin.repository.projection.GroupIdsView;
+import edu.project.howudoin.repository.reactive.ReactiveGroupReadCursorRepository;
+import edu.project.howudoin.repository.reactive.ReactiveGroupRepository;
+import edu.project.howudoin.repository.reactive.ReactiveUserRepository;
+import edu.project.howudoin.utils.IdGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Non-blocking counterpart of GroupService, used by the "reactive" profile
+@Service
+@Profile("reactive")
+public class ReactiveGroupService {
+    @Autowired
+    private ReactiveGroupRepository groupRepository;
+    @Autowired
+    private ReactiveUserRepository userRepository;
+    @Autowired
+    private ReactiveGroupReadCursorRepository groupReadCursorRepository;
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+    @Autowired
+    private IdGenerator idGenerator;
+    @Autowired
+    private MessagePushService messagePushService;
+    @Autowired
+    private MessageMetrics messageMetrics;
+
+    @Value("${howudoin.groups.bucket-span-minutes:60}")
+    private long bucketSpanMinutes;
+    @Value("${howudoin.groups.bucket-max-messages:200}")
+    private int bucketMaxMessages;
+
+    // generating message id
+    public long generateMessageId(){
+        return idGenerator.nextId();
+    }
+
+    // getting group by id, empty if there is no such group
+    public Mono<Group> getGroup(long groupId) {
+        return groupRepository.findById(groupId);
+    }
+
+    // creating a group, emits the nicknames that are not valid users (empty list when the group is created)
+    public Mono<List<String>> createGroup(Group group) {
+        return Flux.fromIterable(group.getMembers())
+                .filterWhen(member -> userRepository.existsByNickname(member).map(exists -> !exists))
+                .collectList()
+                .flatMap(invalidMembers -> {
+                    if (!invalidMembers.isEmpty()) {
+                        return Mono.just(invalidMembers);
+                    }
+
+                    group.setId(idGenerator.nextId());
+                    group.getMembers().add(group.getCreatorName());
+                    group.setCreatedTime(LocalDateTime.now());
+
+                    Query members = new Query(Criteria.where("nickname").in(group.getMembers()));
+                    return mongoTemplate.updateMulti(members, new Update().addToSet("groups", group.getId()), User.class)
+                            .then(groupRepository.save(group))
+                            .thenReturn(invalidMembers);
+                });
+    }
+
+    // adding member to group, emits false if the user does not exist
+    public Mono<Boolean> addMember(long groupId, String memberName) {
+        return userRepository.existsByNickname(memberName).flatMap(exists -> {
+            if (!exists) {
+                return Mono.just(false);
+            }
+            Query user = new Query(Criteria.where("nickname").is(memberName));
+            Query group = new Query(Criteria.where("id").is(groupId));
+            return mongoTemplate.updateFirst(user, new Update().addToSet("groups", groupId), User.class)
+                    .then(mongoTemplate.updateFirst(group, new Update().addToSet("members", memberName), Group.class))
+                    .thenReturn(true);
+        });
+    }
+
+    // checking if a member is in a group or not
+    public Mono<Boolean> memberCheck(long groupId, String memberName) {
+        return groupRepository.existsByIdAndMembers(groupId, memberName);
+    }
+
+    // sending message to group (appended to a bucket of the time span of its id), empty if there is no such group
+    public Mono<Group> sendMessage(long groupId, Message message) {
+        return groupRepository.findById(groupId).flatMap(group -> {
+            message.setReceiver(group.getGroupName());
+            message.setSentTime(LocalDateTime.now());
+            long bucketStart = GroupService.bucketStart(message.getId(), bucketSpanMinutes);
+
+            Query query = GroupService.openBucket(groupId, bucketStart, bucketMaxMessages);
+            return mongoTemplate.upsert(query, GroupService.append(message), GroupMessageBucket.class)
+                    .doOnNext(result -> messagePushService.pushGroup(groupId, group.getMembers(), message))
+                    .doOnNext(result -> messageMetrics.groupMessageSent(group.getMembers().size()))
+                    .thenReturn(group);
+        });
+    }
+
+    // getting messages of a group, one page (oldest first) before or after a message id
+    public Mono<List<Message>> getMessages(long groupId, Long before, Long after, Integer limit) {
+        int pageSize = MessageService.pageSize(limit);
+        AtomicInteger collected = new AtomicInteger();
+
+        // time spans are disjoint, so buckets are read span by span until the page is full
+        Query query = GroupService.bucketQuery(groupId, before, after, bucketSpanMinutes, pageSize);
+        return mongoTemplate.find(query, GroupMessageBucket.class)
+                .bufferUntilChanged(GroupMessageBucket::getBucketStart)
+                .map(span -> {
+                    List<Message> messages = new ArrayList<>();
+                    span.forEach(bucket -> messages.addAll(GroupService.matching(bucket, before, after)));
+                    return messages;
+                })
+                .takeUntil(messages -> collected.addAndGet(messages.size()) >= pageSize)
+                .collectList()
+                .map(chunks -> {
+                    List<Message> messages = new ArrayList<>();
+                    chunks.forEach(messages::addAll);
+                    return GroupService.page(messages, after != null, pageSize);
+                });
+    }
+
+    // saving the read position of a member (never moves backwards)
+    public Mono<Void> markRead(long groupId, String member, long messageId) {
+        Query query = new Query(Criteria.where("id").is(GroupService.readCursorId(groupId, member)));
+        Update update = new Update()
+                .setOnInsert("groupId", groupId)
+                .setOnInsert("member", member)
+                .max("lastReadId", messageId);
+        return mongoTemplate.upsert(query, update, GroupReadCursor.class).then();
+    }
+
+    // getting the read position of a member, 0 if nothing was read yet
+    public Mono<Long> getReadPosition(long groupId, String member) {
+        return groupReadCursorRepository.findById(GroupService.readCursorId(groupId, member))
+                .map(GroupReadCursor::getLastReadId)
+                .defaultIfEmpty(0L);
+    }
+
+    // getting id and name of every group of a user (two queries, whatever the number of groups)
+    public Mono<List<Group>> getGroupSummaries(String nickname) {
+        return userRepository.findGroupIdsByNickname(nickname)
+                .map(GroupIdsView::getGroups)
+                .flatMap(groupIds -> groupRepository.findNamesByIdIn(groupIds)
+                        .collectMap(Group::getId)
+                        .map(groupsById -> {
+                            List<Group> summaries = new ArrayList<>();
+                            for (Long groupId : groupIds) {
+                                Group group = groupsById.get(groupId);
+                                if (group != null) {
+                                    summaries.add(group);
+                                }
+                            }
+                            return summaries;
+                        }))
+                .defaultIfEmpty(new ArrayList<>());
+    }
+}
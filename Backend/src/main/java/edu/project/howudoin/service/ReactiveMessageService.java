@@ -0,0 +1,155 @@
+package edu.project.howudoin.service;
+
+import edu.project.howudoin.model.Friendship;
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.model.User;
+import edu.project.howudoin.repository.reactive.ReactiveFriendshipRepository;
+import edu.project.howudoin.repository.reactive.ReactiveMessageRepository;
+import edu.project.howudoin.repository.reactive.ReactiveUserRepository;
+import edu.project.howudoin.utils.IdGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Non-blocking counterpart of MessageService, used by the "reactive" profile
+@Service
+@Profile("reactive")
+public class ReactiveMessageService {
+    @Autowired
+    private ReactiveMessageRepository messageRepository;
+    @Autowired
+    private ReactiveUserRepository userRepository;
+    @Autowired
+    private ReactiveFriendshipRepository friendshipRepository;
+    @Autowired
+    private IdGenerator idGenerator;
+    @Autowired
+    private MessagePushService messagePushService;
+    @Autowired
+    private MessageMetrics messageMetrics;
+
+    // generating id
+    public long generateMessageId(){
+        return idGenerator.nextId();
+    }
+
+    // getting messages of a user, one page (oldest first) before or after a message id
+    public Mono<List<Message>> getMessages(String nickname, Long before, Long after, Integer limit) {
+        Limit pageSize = Limit.of(MessageService.pageSize(limit));
+        if (after != null) {
+            return messageRepository.findByParticipantsAndIdGreaterThanOrderByIdAsc(nickname, after, pageSize).collectList();
+        }
+        Flux<Message> newestFirst = before != null
+                ? messageRepository.findByParticipantsAndIdLessThanOrderByIdDesc(nickname, before, pageSize)
+                : messageRepository.findByParticipantsOrderByIdDesc(nickname, pageSize);
+        return newestFirst.collectList().map(ReactiveMessageService::oldestFirst);
+    }
+
+    // getting messages between two users, one page (oldest first) before or after a message id
+    public Mono<List<Message>> getMessagesBetween(String nickname1, String nickname2, Long before, Long after, Integer limit) {
+        String conversationId = MessageService.conversationId(nickname1, nickname2);
+        Limit pageSize = Limit.of(MessageService.pageSize(limit));
+        if (after != null) {
+            return messageRepository.findByConversationIdAndIdGreaterThanOrderByIdAsc(conversationId, after, pageSize).collectList();
+        }
+        Flux<Message> newestFirst = before != null
+                ? messageRepository.findByConversationIdAndIdLessThanOrderByIdDesc(conversationId, before, pageSize)
+                : messageRepository.findByConversationIdOrderByIdDesc(conversationId, pageSize);
+        return newestFirst.collectList().map(ReactiveMessageService::oldestFirst);
+    }
+
+    // checking that both users exist
+    public Mono<Boolean> usersExist(String nickname1, String nickname2) {
+        return Mono.zip(userRepository.existsByNickname(nickname1), userRepository.existsByNickname(nickname2))
+                .map(exists -> exists.getT1() && exists.getT2());
+    }
+
+    // sending message
+    public Mono<String> sendMessage(Message message) {
+        String sender = message.getSender();
+        String receiver = message.getReceiver();
+
+        return friendshipRepository.existsByUserAndFriend(sender, receiver).flatMap(friends -> {
+            if (!friends) {
+                return userRepository.existsByNickname(receiver).map(receiverCheck -> receiverCheck
+                        ? "Message could not be sent. You are not friend with this receiver."
+                        : "There is no user that named " + receiver + ".");
+            }
+
+            message.setConversationId(MessageService.conversationId(sender, receiver));
+            message.setParticipants(List.of(sender, receiver));
+            message.setSentTime(LocalDateTime.now());
+            return messageRepository.save(message)
+                    .doOnNext(messagePushService::pushDirect)
+                    .doOnNext(saved -> messageMetrics.directMessageSent())
+                    .thenReturn("Message is sent.");
+        });
+    }
+
+    // sending many messages of one sender at once, with the checks and results of MessageService.sendMessages:
+    // one friendship query, one user query for the rejected receivers and one bulk insert
+    public Mono<List<Map<String, Object>>> sendMessages(String sender, List<Message> messages) {
+        Set<String> receivers = new HashSet<>();
+        for (Message message : messages) {
+            if (message.getSender() == null) {
+                message.setSender(sender);
+            }
+            receivers.add(message.getReceiver());
+        }
+
+        return friendshipRepository.findFriendsAmong(sender, receivers).map(Friendship::getFriend).collect(Collectors.toSet())
+                .flatMap(friends -> {
+                    Set<String> notFriends = new HashSet<>(receivers);
+                    notFriends.removeAll(friends);
+                    Mono<Set<String>> existing = notFriends.isEmpty()
+                            ? Mono.just(Set.of())
+                            : userRepository.findNicknamesByNicknameIn(notFriends).map(User::getNickname).collect(Collectors.toSet());
+                    return existing.flatMap(existingReceivers -> {
+                        List<Map<String, Object>> results = new ArrayList<>();
+                        List<Message> accepted = new ArrayList<>();
+                        for (Message message : messages) {
+                            String receiver = message.getReceiver();
+                            if (!sender.equals(message.getSender())) {
+                                results.add(MessageService.batchResult(0L, 0, "Message could not be sent. You can only send messages as yourself."));
+                            } else if (friends.contains(receiver)) {
+                                message.setId(generateMessageId());
+                                message.setConversationId(MessageService.conversationId(sender, receiver));
+                                message.setParticipants(List.of(sender, receiver));
+                                message.setSentTime(LocalDateTime.now());
+                                accepted.add(message);
+                                results.add(MessageService.batchResult(message.getId(), 1, "Message is sent."));
+                            } else {
+                                results.add(MessageService.batchResult(0L, 0, existingReceivers.contains(receiver)
+                                        ? "Message could not be sent. You are not friend with this receiver."
+                                        : "There is no user that named " + receiver + "."));
+                            }
+                        }
+                        if (accepted.isEmpty()) {
+                            return Mono.just(results);
+                        }
+                        return messageRepository.insert(accepted)
+                                .doOnNext(messagePushService::pushDirect)
+                                .doOnNext(saved -> messageMetrics.directMessageSent())
+                                .then(Mono.just(results));
+                    });
+                });
+    }
+
+    private static List<Message> oldestFirst(List<Message> newestFirst) {
+        List<Message> messages = new ArrayList<>(newestFirst);
+        Collections.reverse(messages);
+        return messages;
+    }
+}
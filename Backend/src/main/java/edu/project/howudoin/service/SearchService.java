@@ -0,0 +1,84 @@
+package edu.project.howudoin.service;
+
+import edu.project.howudoin.model.GroupMetadata;
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.model.SearchEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class SearchService {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private UserService userService;
+
+    // indexing direct messages, both sides can find them (one bulk write, repeated calls do not duplicate)
+    public void indexDirectMessages(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SearchEntry.class);
+        for (Message message : messages) {
+            for (String scope : List.of(userScope(message.getSender()), userScope(message.getReceiver()))) {
+                SearchEntry entry = entry(message, null, scope);
+                bulk.replaceOne(byKey(entry.getKey()), entry, FindAndReplaceOptions.options().upsert());
+            }
+        }
+        bulk.execute();
+    }
+
+    public void indexDirectMessage(Message message) {
+        indexDirectMessages(List.of(message));
+    }
+
+    // indexing a group message, every current and future member can find it
+    public void indexGroupMessage(GroupMetadata group, Message message) {
+        mongoTemplate.save(entry(message, group.id(), groupScope(group.id())));
+    }
+
+    // messages of the caller's conversations matching the words of the query, best match first
+    public List<SearchEntry> search(String nickname, String text, int page, Integer limit) {
+        int pageSize = MessageService.pageSize(limit);
+
+        List<String> scopes = new ArrayList<>();
+        scopes.add(userScope(nickname));
+        for (Long groupId : userService.getGroups(nickname)) {
+            scopes.add(groupScope(groupId));
+        }
+
+        Query query = TextQuery.queryText(TextCriteria.forLanguage("none").matching(text))
+                .sortByScore()
+                .addCriteria(Criteria.where("scope").in(scopes))
+                .skip((long) page * pageSize)
+                .limit(pageSize);
+        return mongoTemplate.find(query, SearchEntry.class);
+    }
+
+    private static SearchEntry entry(Message message, Long groupId, String scope) {
+        return new SearchEntry(message.getId() + ":" + scope, message.getId(), message.getSender(), message.getReceiver(),
+                groupId, message.getContent(), message.getSentTime(), scope, null);
+    }
+
+    private static Query byKey(String key) {
+        return new Query(Criteria.where("key").is(key));
+    }
+
+    static String userScope(String nickname) {
+        return "u:" + nickname;
+    }
+
+    static String groupScope(long groupId) {
+        return "g:" + groupId;
+    }
+}
@@ -1,23 +1,52 @@
 package edu.project.howudoin.service;
 import edu.project.howudoin.model.FriendRequest;
-import edu.project.howudoin.model.Message;
+import edu.project.howudoin.model.Friendship;
 import edu.project.howudoin.model.User;
+import edu.project.howudoin.repository.FriendshipRepository;
 import edu.project.howudoin.repository.UserRepository;
+import edu.project.howudoin.repository.projection.CredentialsView;
+import edu.project.howudoin.security.AuthenticatedUser;
+import edu.project.howudoin.security.PrincipalCache;
+import edu.project.howudoin.utils.IdGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class UserService {
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private FriendshipRepository friendshipRepository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private IdGenerator idGenerator;
+    @Autowired
+    private PrincipalCache principalCache;
+    @Autowired
+    private ChangeCounterService changeCounterService;
+    @Autowired
+    private ChangeLogService changeLogService;
 
     // UserController
 
     // generating id
-    public int generateUserId(){
-        return (int) userRepository.count();
+    public long generateUserId(){
+        return idGenerator.nextId();
     }
 
     // getting user by nickname function
@@ -30,6 +59,41 @@ public class UserService {
         return userRepository.findByEmail(email).get();
     }
 
+    // getting the slim principal of a user by email, served from PrincipalCache when possible
+    public AuthenticatedUser getPrincipal(String email) {
+        AuthenticatedUser principal = principalCache.get(email);
+        if (principal != null) {
+            return principal;
+        }
+
+        Query query = new Query(Criteria.where("email").is(email));
+        query.fields().include("nickname", "email");
+        User user = mongoTemplate.findOne(query, User.class);
+        if (user == null) {
+            return null;
+        }
+
+        principal = new AuthenticatedUser(user.getId(), user.getNickname(), user.getEmail());
+        principalCache.put(principal);
+        return principal;
+    }
+
+    // inserting a new user (for /register), DuplicateKeyException if the email or nickname is taken
+    public void insertUser(User user) {
+        userRepository.insert(user);
+        principalCache.invalidate(user.getEmail());
+    }
+
+    // replacing the stored password (hash) of a user
+    public void updatePassword(String email, String password) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("email").is(email)), new Update().set("password", password), User.class);
+    }
+
+    // getting login fields of a user by email, empty if there is no such user
+    public Optional<CredentialsView> getCredentials(String email) {
+        return userRepository.findCredentialsByEmail(email);
+    }
+
     // checking if user exists or not
     public boolean userCheck(String nickname){
         return userRepository.existsByNickname(nickname);
@@ -42,65 +106,88 @@ public class UserService {
         String senderNickname = request.getSender();
         String receiverNickname = request.getReceiver();
 
-        User sender;
-        User receiver;
-
         if (userRepository.existsByNickname(senderNickname) && userRepository.existsByNickname(receiverNickname)) {
-            sender = userRepository.findByNickname(senderNickname).get();
-            receiver = userRepository.findByNickname(receiverNickname).get();
-
-            userRepository.delete(sender);
-            sender.getFriends().add(receiverNickname);
-            userRepository.save(sender);
-
-            userRepository.delete(receiver);
-            receiver.getFriends().add(senderNickname);
-            userRepository.save(receiver);
-
+            saveFriendship(senderNickname, receiverNickname);
             return "Request is accepted.";
         } else {
             return "There is no such sender or receiver.";
         }
     }
 
-    // getting friends function (for /friends)
-    public List<String> getFriends(String nickname) {
-        User user = getUser(nickname);
-        return user.getFriends();
+    // saving both directions of a friendship in one bulk write (idempotent thanks to the unique edge index)
+    public void saveFriendship(String nickname1, String nickname2) {
+        BulkOperations edges = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Friendship.class);
+        edges.upsert(friendshipEdge(nickname1, nickname2), new Update().setOnInsert("user", nickname1).setOnInsert("friend", nickname2));
+        edges.upsert(friendshipEdge(nickname2, nickname1), new Update().setOnInsert("user", nickname2).setOnInsert("friend", nickname1));
+        edges.execute();
+        changeCounterService.userChanged(List.of(nickname1, nickname2));
+        changeLogService.friendshipAdded(nickname1, nickname2);
+    }
+
+    // checking friendship with a single indexed lookup (both directions are always written together)
+    public boolean isFriend(String nickname, String friend) {
+        return friendshipRepository.existsByUserAndFriend(nickname, friend);
     }
 
-    // Message Controller
+    // friends of each of the given users among the candidates, with one query (for batch sends)
+    public Map<String, Set<String>> getFriendsAmong(Collection<String> nicknames, Collection<String> candidates) {
+        Query query = new Query(Criteria.where("user").in(nicknames).and("friend").in(candidates));
+        query.fields().include("user", "friend").exclude("id");
 
-    // saving message function (for /message/send)
-    public void saveMessage (Message message){
-        String sender =  message.getSender();
-        String receiver = message.getReceiver();
+        Map<String, Set<String>> friends = new HashMap<>();
+        for (Friendship edge : mongoTemplate.find(query, Friendship.class)) {
+            friends.computeIfAbsent(edge.getUser(), user -> new HashSet<>()).add(edge.getFriend());
+        }
+        return friends;
+    }
 
-        User senderUser = userRepository.findByNickname(sender).get();
-        userRepository.delete(senderUser);
-        senderUser.getMessages().add(message);
-        userRepository.save(senderUser);
+    // the given nicknames that belong to a user, with one query
+    public Set<String> getExistingNicknames(Collection<String> nicknames) {
+        Query query = new Query(Criteria.where("nickname").in(nicknames));
+        query.fields().include("nickname").exclude("id");
+
+        Set<String> existing = new HashSet<>();
+        for (User user : mongoTemplate.find(query, User.class)) {
+            existing.add(user.getNickname());
+        }
+        return existing;
+    }
 
-        User receiverUser = userRepository.findByNickname(receiver).get();
-        userRepository.delete(receiverUser);
-        receiverUser.getMessages().add(message);
-        userRepository.save(receiverUser);
+    // getting friends function (for /friends)
+    public List<String> getFriends(String nickname) {
+        List<String> friends = new ArrayList<>();
+        for (Friendship friendship : friendshipRepository.findFriendsByUser(nickname)) {
+            friends.add(friendship.getFriend());
+        }
+        return friends;
     }
 
     // Group Controller
 
     // adding group to user
-    public void addToGroups(String nickname, Integer groupId) {
-        User user = getUser(nickname);
-        userRepository.delete(user);
-        user.getGroups().add(groupId);
-        userRepository.save(user);
+    public void addToGroups(String nickname, Long groupId) {
+        mongoTemplate.updateFirst(byNickname(nickname), new Update().addToSet("groups", groupId), User.class);
+        changeCounterService.userChanged(nickname);
+    }
+
+    // adding group to several users in one update
+    public void addToGroups(Collection<String> nicknames, Long groupId) {
+        Query query = new Query(Criteria.where("nickname").in(nicknames));
+        mongoTemplate.updateMulti(query, new Update().addToSet("groups", groupId), User.class);
+        changeCounterService.userChanged(nicknames);
     }
 
     // getting groups function (for /groups)
-    public List<Integer> getGroups(String nickname) {
-        User user = getUser(nickname);
-        return user.getGroups();
+    public List<Long> getGroups(String nickname) {
+        return userRepository.findGroupIdsByNickname(nickname).get().getGroups();
+    }
+
+    private Query byNickname(String nickname) {
+        return new Query(Criteria.where("nickname").is(nickname));
+    }
+
+    private Query friendshipEdge(String nickname, String friend) {
+        return new Query(Criteria.where("user").is(nickname).and("friend").is(friend));
     }
 
 }
@@ -0,0 +1,222 @@
+package edu.project.howudoin.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Append-only record log on memory-mapped segment files (<id>.log in one directory).
+// A record is [length][crc32][payload]; a zero length marks the end of a segment's data.
+// Writes land in the page cache, so appended records survive a crash of the process (and of the machine
+// with syncOnAppend). Callers release records once they are stored elsewhere; a full segment whose
+// records are all released is deleted, and so is the active one on close. Segments left over from a
+// previous run (unreleased records of a crash or of a close with records still pending) are read back with replay.
+public class AppendLog implements Closeable {
+    private static final int HEADER_SIZE = 8;
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncOnAppend;
+    private final List<Path> recovered;
+    // a lock rather than synchronized, appends must not pin virtual threads
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private volatile Segment active;
+    // full segments that still have unreleased records
+    private final List<Segment> rolled = new CopyOnWriteArrayList<>();
+
+    public AppendLog(Path directory, int segmentSize, boolean syncOnAppend) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncOnAppend = syncOnAppend;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                this.recovered = files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                        .sorted((a, b) -> Long.compare(segmentId(a), segmentId(b)))
+                        .toList();
+            }
+            long nextId = recovered.isEmpty() ? 0 : segmentId(recovered.get(recovered.size() - 1)) + 1;
+            this.active = new Segment(nextId, directory.resolve(nextId + SUFFIX), segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // handing the records of the previous run to the consumer in batches, in append order.
+    // A segment is deleted once the consumer has returned for all of its records.
+    public int replay(int batchSize, Consumer<List<byte[]>> consumer) {
+        int replayed = 0;
+        for (Path file : recovered) {
+            List<byte[]> batch = new ArrayList<>();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                while (buffer.remaining() >= HEADER_SIZE) {
+                    int length = buffer.getInt();
+                    int crc = buffer.getInt();
+                    // end of the data, or a record torn by a crash in the middle of an append
+                    if (length <= 0 || length > buffer.remaining()) {
+                        break;
+                    }
+                    byte[] record = new byte[length];
+                    buffer.get(record);
+                    if (crc(record) != crc) {
+                        break;
+                    }
+                    batch.add(record);
+                    if (batch.size() == batchSize) {
+                        consumer.accept(batch);
+                        replayed += batch.size();
+                        batch = new ArrayList<>();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (!batch.isEmpty()) {
+                consumer.accept(batch);
+                replayed += batch.size();
+            }
+            delete(file);
+        }
+        return replayed;
+    }
+
+    // appending a record, returns the id of the segment it was written to (needed to release it)
+    public long append(byte[] record) {
+        if (record.length + HEADER_SIZE * 2 > segmentSize) {
+            throw new IllegalArgumentException("Record of " + record.length + " bytes does not fit into a segment");
+        }
+        appendLock.lock();
+        try {
+            // keep room for the zero length that ends the segment
+            if (active.buffer.remaining() < record.length + HEADER_SIZE * 2) {
+                roll();
+            }
+            Segment segment = active;
+            int start = segment.buffer.position();
+            segment.buffer.putInt(record.length).putInt(crc(record)).put(record);
+            segment.pending.incrementAndGet();
+            if (syncOnAppend) {
+                segment.buffer.force(start, record.length + HEADER_SIZE);
+            }
+            return segment.id;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // marking records of a segment as stored elsewhere
+    public void release(long segmentId, int count) {
+        Segment segment = active;
+        if (segment.id != segmentId) {
+            segment = rolled.stream().filter(candidate -> candidate.id == segmentId).findFirst().orElse(null);
+            if (segment == null) {
+                return;
+            }
+        }
+        if (segment.pending.addAndGet(-count) == 0 && segment.rolled) {
+            retire(segment);
+        }
+    }
+
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            active.close();
+            // nothing in it needs a replay, keeping it would write its records a second time on the next start
+            if (active.pending.get() == 0) {
+                delete(active.path);
+            }
+            for (Segment segment : rolled) {
+                segment.close();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void roll() {
+        Segment full = active;
+        Segment next;
+        try {
+            next = new Segment(full.id + 1, directory.resolve((full.id + 1) + SUFFIX), segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // listed as rolled before it stops being active, so a release running without the lock finds it either way
+        full.rolled = true;
+        rolled.add(full);
+        active = next;
+        if (full.pending.get() == 0) {
+            retire(full);
+        }
+    }
+
+    private void retire(Segment segment) {
+        if (segment.deleted.compareAndSet(false, true)) {
+            rolled.remove(segment);
+            segment.close();
+            delete(segment.path);
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static int crc(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private static class Segment {
+        final long id;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final AtomicInteger pending = new AtomicInteger();
+        final AtomicBoolean deleted = new AtomicBoolean();
+        volatile boolean rolled;
+
+        Segment(long id, Path path, int size) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
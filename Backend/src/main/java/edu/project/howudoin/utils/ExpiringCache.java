@@ -0,0 +1,99 @@
+package edu.project.howudoin.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+// Small thread-safe cache with a per-entry expiry time and an upper bound on the number of entries.
+// Backed by Caffeine: expired entries are dropped from a timer wheel and a full cache evicts by recency and
+// frequency, both in constant time per write, so a full cache costs no more than an empty one.
+public class ExpiringCache<K, V> {
+    private final Cache<K, Entry<V>> entries;
+
+    public ExpiringCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive, was " + maxSize);
+        }
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilExpiresAt<K, V>())
+                // maintenance runs on the writing thread in small steps instead of on the common pool
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+    }
+
+    // getting a value, null if it is missing or expired
+    public V get(K key) {
+        Entry<V> entry = entries.getIfPresent(key);
+        return entry == null ? null : entry.value();
+    }
+
+    // putting a value that is valid until the given epoch milliseconds
+    public void put(K key, V value, long expiresAt) {
+        entries.put(key, new Entry<>(value, expiresAt));
+    }
+
+    public void invalidate(K key) {
+        entries.invalidate(key);
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    public int size() {
+        return (int) entries.estimatedSize();
+    }
+
+    public long hitCount() {
+        return entries.stats().hitCount();
+    }
+
+    public long missCount() {
+        return entries.stats().missCount();
+    }
+
+    // entries dropped because they expired or the cache was full (invalidations are not counted)
+    public long evictionCount() {
+        return entries.stats().evictionCount();
+    }
+
+    // running pending expiry and eviction work now
+    public void cleanUp() {
+        entries.cleanUp();
+    }
+
+    // publishing size, hits, misses and evictions as howudoin.cache.* meters tagged with the cache name
+    public void bindTo(MeterRegistry registry, String cacheName) {
+        Gauge.builder("howudoin.cache.size", this, ExpiringCache::size).tag("cache", cacheName).register(registry);
+        FunctionCounter.builder("howudoin.cache.hits", this, ExpiringCache::hitCount).tag("cache", cacheName).register(registry);
+        FunctionCounter.builder("howudoin.cache.misses", this, ExpiringCache::missCount).tag("cache", cacheName).register(registry);
+        FunctionCounter.builder("howudoin.cache.evictions", this, ExpiringCache::evictionCount).tag("cache", cacheName).register(registry);
+    }
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    // every entry lives until its own expiresAt, reads do not extend it
+    private static class UntilExpiresAt<K, V> implements Expiry<K, Entry<V>> {
+        @Override
+        public long expireAfterCreate(K key, Entry<V> entry, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.expiresAt() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, Entry<V> entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(K key, Entry<V> entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package edu.project.howudoin.configuration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.security.JwtRequestFilter;
+import edu.project.howudoin.utils.APIResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = WebConfigTests.SampleController.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = JwtRequestFilter.class))
+@AutoConfigureMockMvc(addFilters = false)
+@Import(WebConfigTests.SampleController.class)
+class WebConfigTests {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @RestController
+    static class SampleController {
+
+        @GetMapping("/web-config-tests/message")
+        APIResponse<Message> message() {
+            return new APIResponse<>(1, "Message retrieved successfully!", new Message(123456789012345L, "alice", "bob",
+                    "hello", "alice:bob", List.of("alice", "bob"), LocalDateTime.of(2024, 5, 1, 12, 30)));
+        }
+    }
+
+    @Test
+    void cborIsSentWhenAskedFor() throws Exception {
+        JsonNode body = read(MediaType.APPLICATION_CBOR, new CBORMapper());
+        assertTrue(body.at("/data/sentTime").isTextual(), body.toString());
+        assertEquals("2024-05-01T12:30:00", body.at("/data/sentTime").asText());
+        assertEquals(123456789012345L, body.at("/data/id").asLong());
+    }
+
+    @Test
+    void smileIsSentWhenAskedFor() throws Exception {
+        JsonNode body = read(SMILE, new SmileMapper());
+        assertTrue(body.at("/data/sentTime").isTextual(), body.toString());
+        assertEquals("2024-05-01T12:30:00", body.at("/data/sentTime").asText());
+    }
+
+    @Test
+    void jsonStaysTheDefault() throws Exception {
+        mockMvc.perform(get("/web-config-tests/message").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/web-config-tests/message"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    private JsonNode read(MediaType mediaType, ObjectMapper mapper) throws Exception {
+        MvcResult result = mockMvc.perform(get("/web-config-tests/message").accept(mediaType))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(mediaType))
+                .andReturn();
+        return mapper.readTree(result.getResponse().getContentAsByteArray());
+    }
+}
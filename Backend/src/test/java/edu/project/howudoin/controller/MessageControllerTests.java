@@ -0,0 +1,74 @@
+package edu.project.howudoin.controller;
+
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.security.JwtRequestFilter;
+import edu.project.howudoin.service.ChangeCounterService;
+import edu.project.howudoin.service.MessageService;
+import edu.project.howudoin.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = MessageController.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = JwtRequestFilter.class))
+@AutoConfigureMockMvc(addFilters = false)
+class MessageControllerTests {
+    private static final String ETAG = "W/\"1a2b-3\"";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private MessageService messageService;
+    @MockBean
+    private UserService userService;
+    @MockBean
+    private ChangeCounterService changeCounterService;
+
+    @BeforeEach
+    void setUp() {
+        when(changeCounterService.userEtag("alice")).thenReturn(ETAG);
+        when(userService.userCheck(anyString())).thenReturn(true);
+        when(messageService.getMessagesBetween(eq("alice"), eq("bob"), any(), any(), any()))
+                .thenReturn(List.of(new Message(1L, "alice", "bob", "hello", "alice:bob", List.of("alice", "bob"), null)));
+    }
+
+    @Test
+    void historyIsSentWithItsEtag() throws Exception {
+        mockMvc.perform(get("/messagesbetween").param("nickname", "alice").param("friend", "bob"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG));
+    }
+
+    @Test
+    void unchangedHistoryIsAnsweredWith304WithoutReadingIt() throws Exception {
+        mockMvc.perform(get("/messagesbetween").param("nickname", "alice").param("friend", "bob")
+                        .header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG));
+        verify(messageService, never()).getMessagesBetween(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void changedHistoryIsSentAgain() throws Exception {
+        mockMvc.perform(get("/messagesbetween").param("nickname", "alice").param("friend", "bob")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"1a2b-2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG));
+    }
+}
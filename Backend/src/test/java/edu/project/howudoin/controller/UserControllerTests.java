@@ -0,0 +1,39 @@
+package edu.project.howudoin.controller;
+
+import edu.project.howudoin.utils.APIResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserControllerTests {
+
+    @Test
+    void fullQueueIsReportedAsBusy() {
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, UserController.failed(new RejectedExecutionException()).getStatusCode());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+                UserController.failed(new CompletionException(new RejectedExecutionException())).getStatusCode());
+    }
+
+    @Test
+    void otherFailuresAreServerErrors() {
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR,
+                UserController.failed(new CompletionException(new DataAccessResourceFailureException("down"))).getStatusCode());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, UserController.failed(new IllegalStateException()).getStatusCode());
+    }
+
+    @Test
+    void rejectionReachesTheHandlerWrappedByLaterStages() {
+        ResponseEntity<APIResponse<String>> response = CompletableFuture.<String>failedFuture(new RejectedExecutionException())
+                .thenApply(hash -> ResponseEntity.ok(new APIResponse<String>(1, hash, null)))
+                .exceptionally(UserController::failed)
+                .join();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+}
@@ -0,0 +1,116 @@
+package edu.project.howudoin.repository;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import edu.project.howudoin.model.Friendship;
+import edu.project.howudoin.model.User;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Measures the reply size of the hot read paths, so projection regressions show up as failing tests
+@DataMongoTest
+@Import(ProjectionQueryTests.ReplySizeConfig.class)
+class ProjectionQueryTests {
+    // a BCrypt hash, as stored for every registered user
+    private static final String PASSWORD = "$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FriendshipRepository friendshipRepository;
+
+    @Autowired
+    private ReplySizeRecorder recorder;
+
+    @BeforeEach
+    void saveHeavyUser() {
+        userRepository.deleteAll();
+        friendshipRepository.deleteAll();
+
+        List<Long> groups = new ArrayList<>();
+        List<Friendship> friendships = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            groups.add(1_000_000_000_000L + i);
+            friendships.add(new Friendship(null, "heavy", "friend-number-" + i));
+        }
+        userRepository.save(new User(1L, "heavy", "Heavy", "User", "heavy@example.com", PASSWORD, groups));
+        friendshipRepository.saveAll(friendships);
+    }
+
+    @Test
+    void projectionsReturnFarFewerBytesThanTheFullDocument() {
+        long full = recorder.measure(() -> userRepository.findByNickname("heavy"));
+        long groupIds = recorder.measure(() -> userRepository.findGroupIdsByNickname("heavy"));
+        long credentials = recorder.measure(() -> userRepository.findCredentialsByEmail("heavy@example.com"));
+        long friends = recorder.measure(() -> friendshipRepository.findFriendsByUser("heavy"));
+
+        // the group ids are most of the user, so the bound is every other field having been left out
+        long otherFields = bsonSize(new Document("nickname", "heavy").append("name", "Heavy").append("lastname", "User")
+                .append("email", "heavy@example.com").append("password", PASSWORD));
+        assertTrue(groupIds <= full - otherFields, "group id projection returned " + groupIds + " of " + full
+                + " bytes, at least " + otherFields + " bytes of other fields should have been left out");
+        assertTrue(credentials < 1024, "credentials projection returned " + credentials + " bytes, the full user " + full + " bytes");
+        assertTrue(friends < 1000 * 64, "friend list returned " + friends + " bytes for 1000 friends");
+    }
+
+    @Test
+    void projectionsKeepTheirFields() {
+        assertEquals(1000, friendshipRepository.findFriendsByUser("heavy").size());
+        assertTrue(friendshipRepository.existsByUserAndFriend("heavy", "friend-number-7"));
+        assertEquals(1000, userRepository.findGroupIdsByNickname("heavy").get().getGroups().size());
+        assertEquals("heavy", userRepository.findCredentialsByEmail("heavy@example.com").get().getNickname());
+    }
+
+    // encoded size of the fields of a document, without the document's own length and terminator
+    private static long bsonSize(Document fields) {
+        return new RawBsonDocument(fields, new DocumentCodec()).getByteBuffer().remaining() - 5;
+    }
+
+    // total size of the replies to find commands
+    static class ReplySizeRecorder implements CommandListener {
+        private final AtomicLong bytes = new AtomicLong();
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+            if (event.getCommandName().equals("find")) {
+                RawBsonDocument reply = RawBsonDocument.parse(event.getResponse().toJson());
+                bytes.addAndGet(reply.getByteBuffer().remaining());
+            }
+        }
+
+        long measure(Runnable call) {
+            bytes.set(0);
+            call.run();
+            return bytes.get();
+        }
+    }
+
+    @TestConfiguration
+    static class ReplySizeConfig {
+        @Bean
+        ReplySizeRecorder replySizeRecorder() {
+            return new ReplySizeRecorder();
+        }
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer replySizeListener(ReplySizeRecorder recorder) {
+            return builder -> builder.addCommandListener(recorder);
+        }
+    }
+}
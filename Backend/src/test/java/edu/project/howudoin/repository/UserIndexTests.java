@@ -0,0 +1,46 @@
+package edu.project.howudoin.repository;
+
+import edu.project.howudoin.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Registration relies on these indexes instead of checking for existing users first
+@DataMongoTest
+class UserIndexTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void saveUser() {
+        userRepository.deleteAll();
+        userRepository.insert(user(1L, "taken", "taken@example.com"));
+    }
+
+    @Test
+    void duplicateEmailIsRejected() {
+        assertThrows(DuplicateKeyException.class, () -> userRepository.insert(user(2L, "other", "taken@example.com")));
+    }
+
+    @Test
+    void duplicateNicknameIsRejected() {
+        assertThrows(DuplicateKeyException.class, () -> userRepository.insert(user(3L, "taken", "other@example.com")));
+    }
+
+    @Test
+    void distinctUserIsInserted() {
+        userRepository.insert(user(4L, "other", "other@example.com"));
+        assertEquals(2, userRepository.count());
+    }
+
+    private static User user(long id, String nickname, String email) {
+        return new User(id, nickname, "Test", "User", email, "secret", new ArrayList<>());
+    }
+}
@@ -0,0 +1,61 @@
+package edu.project.howudoin.service;
+
+import edu.project.howudoin.model.ChangeCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+@Import(ChangeCounterService.class)
+class ChangeCounterServiceTests {
+
+    @Autowired
+    private ChangeCounterService changeCounterService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void clear() {
+        mongoTemplate.remove(ChangeCounter.class).all();
+    }
+
+    @Test
+    void etagStaysUntilTheUserChanges() {
+        String unchanged = changeCounterService.userEtag("alice");
+        assertTrue(unchanged.startsWith("W/\""));
+        assertEquals(unchanged, changeCounterService.userEtag("alice"));
+
+        changeCounterService.userChanged("bob");
+        assertEquals(unchanged, changeCounterService.userEtag("alice"));
+
+        changeCounterService.userChanged(List.of("alice", "bob"));
+        assertNotEquals(unchanged, changeCounterService.userEtag("alice"));
+    }
+
+    @Test
+    void groupEtagsFollowTheGroupAndItsReaders() {
+        String before = changeCounterService.etag(List.of("alice"), List.of(7L));
+        changeCounterService.groupChanged(8);
+        assertEquals(before, changeCounterService.etag(List.of("alice"), List.of(7L)));
+
+        changeCounterService.groupChanged(7);
+        String afterMessage = changeCounterService.etag(List.of("alice"), List.of(7L));
+        assertNotEquals(before, afterMessage);
+
+        changeCounterService.userChanged("alice");
+        assertNotEquals(afterMessage, changeCounterService.etag(List.of("alice"), List.of(7L)));
+    }
+
+    @Test
+    void sameVersionsOfDifferentResourcesDoNotMatch() {
+        assertNotEquals(changeCounterService.userEtag("alice"), changeCounterService.userEtag("bob"));
+    }
+}
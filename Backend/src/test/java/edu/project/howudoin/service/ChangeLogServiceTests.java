@@ -0,0 +1,137 @@
+package edu.project.howudoin.service;
+
+import edu.project.howudoin.model.ChangeLogEntry;
+import edu.project.howudoin.utils.IdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+@Import({ChangeLogService.class, IdGenerator.class})
+@TestPropertySource(properties = "howudoin.sync.settle-ms=60000")
+class ChangeLogServiceTests {
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // ids from two minutes ago, well behind the settle window
+    private long settled;
+
+    @BeforeEach
+    void clear() {
+        mongoTemplate.remove(ChangeLogEntry.class).all();
+        settled = IdGenerator.lowestIdAt(System.currentTimeMillis() - Duration.ofMinutes(2).toMillis());
+    }
+
+    @Test
+    void tokensRoundTripAndOthersAreRejected() {
+        assertEquals(123456789L, ChangeLogService.parseToken(ChangeLogService.token(123456789L)));
+        assertNull(ChangeLogService.parseToken("not a token"));
+        assertNull(ChangeLogService.parseToken(Base64.getUrlEncoder().encodeToString("v0:12".getBytes(StandardCharsets.UTF_8))));
+        assertNull(changeLogService.changesSince("alice", List.of(), "not a token", null));
+
+        String expired = ChangeLogService.token(IdGenerator.lowestIdAt(System.currentTimeMillis() - Duration.ofDays(31).toMillis()));
+        assertThrows(IllegalStateException.class, () -> changeLogService.changesSince("alice", List.of(), expired, null));
+    }
+
+    @Test
+    void settledChangesAreReturnedOnce() {
+        insert(settled + 1, "alice", "bob");
+        insert(settled + 2, "alice", "carol");
+        insert(settled + 3, "carol", "dave");
+
+        Map<String, Object> first = changeLogService.changesSince("alice", List.of(), ChangeLogService.token(settled), null);
+        assertEquals(List.of(settled + 1, settled + 2), ids(first));
+        assertEquals(false, first.get("hasMore"));
+        assertEquals(ChangeLogService.token(settled + 2), first.get("token"));
+
+        Map<String, Object> second = changeLogService.changesSince("alice", List.of(), (String) first.get("token"), null);
+        assertEquals(List.of(), ids(second));
+        assertEquals(first.get("token"), second.get("token"));
+    }
+
+    @Test
+    void pagesFollowEachOtherWithoutGaps() {
+        for (int i = 1; i <= 3; i++) {
+            insert(settled + i, "alice", "bob");
+        }
+
+        Map<String, Object> first = changeLogService.changesSince("alice", List.of(), ChangeLogService.token(settled), 2);
+        assertEquals(List.of(settled + 1, settled + 2), ids(first));
+        assertEquals(true, first.get("hasMore"));
+
+        Map<String, Object> second = changeLogService.changesSince("alice", List.of(), (String) first.get("token"), 2);
+        assertEquals(List.of(settled + 3), ids(second));
+        assertEquals(false, second.get("hasMore"));
+    }
+
+    @Test
+    void changeCommittedLateBelowAPageBoundaryIsFoundOnTheNextSync() {
+        // the late writer took its id first but commits after the others
+        long late = idGenerator.nextId();
+        long first = idGenerator.nextId();
+        long second = idGenerator.nextId();
+        long third = idGenerator.nextId();
+        insert(first, "alice", "bob");
+        insert(second, "alice", "bob");
+        insert(third, "alice", "bob");
+
+        Map<String, Object> page = changeLogService.changesSince("alice", List.of(), ChangeLogService.token(settled), 2);
+        assertEquals(List.of(first, second), ids(page));
+        assertEquals(true, page.get("hasMore"));
+        assertTrue(ChangeLogService.parseToken((String) page.get("token")) < late);
+
+        insert(late, "alice", "bob");
+        Map<String, Object> next = changeLogService.changesSince("alice", List.of(), (String) page.get("token"), null);
+        assertEquals(List.of(late, first, second, third), ids(next));
+    }
+
+    @Test
+    void groupChangesReachMembersThroughTheirGroups() {
+        insert(settled + 1, "alice", "bob");
+        ChangeLogEntry groupMessage = new ChangeLogEntry();
+        groupMessage.setId(settled + 2);
+        groupMessage.setOwners(List.of(ChangeLogService.groupScope(7)));
+        groupMessage.setType(ChangeLogEntry.GROUP_MESSAGE);
+        groupMessage.setGroupId(7L);
+        groupMessage.setCreatedAt(new Date());
+        mongoTemplate.insert(groupMessage);
+
+        assertEquals(List.of(settled + 2), ids(changeLogService.changesSince("carol", List.of(7L), ChangeLogService.token(settled), null)));
+        assertEquals(List.of(), ids(changeLogService.changesSince("carol", List.of(), ChangeLogService.token(settled), null)));
+    }
+
+    private void insert(long id, String nickname1, String nickname2) {
+        ChangeLogEntry entry = new ChangeLogEntry();
+        entry.setId(id);
+        entry.setOwners(List.of(ChangeLogService.userScope(nickname1), ChangeLogService.userScope(nickname2)));
+        entry.setType(ChangeLogEntry.FRIENDSHIP);
+        entry.setUsers(List.of(nickname1, nickname2));
+        entry.setCreatedAt(new Date());
+        mongoTemplate.insert(entry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> ids(Map<String, Object> changes) {
+        return ((List<ChangeLogEntry>) changes.get("changes")).stream().map(ChangeLogEntry::getId).toList();
+    }
+}
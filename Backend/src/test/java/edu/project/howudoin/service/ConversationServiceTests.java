@@ -0,0 +1,88 @@
+package edu.project.howudoin.service;
+
+import edu.project.howudoin.model.Conversation;
+import edu.project.howudoin.model.ConversationList;
+import edu.project.howudoin.model.GroupMetadata;
+import edu.project.howudoin.model.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+@Import(ConversationService.class)
+class ConversationServiceTests {
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void clear() {
+        mongoTemplate.remove(ConversationList.class).all();
+    }
+
+    @Test
+    void unreadCountsRiseForTheReceiverAndClearOnRead() {
+        conversationService.directMessagesSent(List.of(message(1, "alice", "bob", "one"), message(2, "alice", "bob", "two")));
+
+        Conversation bobSide = conversationService.getConversations("bob").get(0);
+        assertEquals("alice", bobSide.getPeer());
+        assertEquals(2, bobSide.getUnread());
+        assertEquals("two", bobSide.getPreview());
+        assertEquals(0, conversationService.getConversations("alice").get(0).getUnread());
+
+        conversationService.markDirectRead("bob", "alice");
+        assertEquals(0, conversationService.getConversations("bob").get(0).getUnread());
+    }
+
+    @Test
+    void anOlderMessageArrivingLateCountsButKeepsTheNewerPreview() {
+        conversationService.directMessageSent(message(2, "alice", "bob", "newer"));
+        conversationService.directMessageSent(message(1, "alice", "bob", "older"));
+
+        Conversation bobSide = conversationService.getConversations("bob").get(0);
+        assertEquals(2, bobSide.getLastMessageId());
+        assertEquals("newer", bobSide.getPreview());
+        assertEquals(2, bobSide.getUnread());
+    }
+
+    @Test
+    void aLateOwnMessageDoesNotClearUnreadRepliesOfItsSender() {
+        conversationService.directMessageSent(message(2, "bob", "alice", "reply"));
+        conversationService.directMessageSent(message(1, "alice", "bob", "question"));
+
+        Conversation aliceSide = conversationService.getConversations("alice").get(0);
+        assertEquals(1, aliceSide.getUnread());
+        assertEquals("reply", aliceSide.getPreview());
+    }
+
+    @Test
+    void groupMessagesCountForEveryMemberButTheSender_whoseOwnMessageClearsTheCount() {
+        GroupMetadata group = new GroupMetadata(7, "hikers", "alice", Set.of("alice", "bob", "carol"), LocalDateTime.now(), 0);
+        conversationService.groupMessageSent(group, message(1, "alice", "hikers", "trail at nine"));
+        conversationService.groupMessageSent(group, message(2, "bob", "hikers", "see you there"));
+
+        assertEquals(1, conversationService.getConversations("alice").get(0).getUnread());
+        assertEquals(0, conversationService.getConversations("bob").get(0).getUnread());
+        Conversation carolSide = conversationService.getConversations("carol").get(0);
+        assertEquals(2, carolSide.getUnread());
+        assertEquals(Long.valueOf(7), carolSide.getGroupId());
+        assertEquals("see you there", carolSide.getPreview());
+    }
+
+    private static Message message(long id, String sender, String receiver, String content) {
+        return new Message(id, sender, receiver, content, MessageService.conversationId(sender, receiver),
+                List.of(sender, receiver), LocalDateTime.now());
+    }
+}
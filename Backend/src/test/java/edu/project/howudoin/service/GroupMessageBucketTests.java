@@ -0,0 +1,85 @@
+package edu.project.howudoin.service;
+
+import edu.project.howudoin.model.GroupMessageBucket;
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.utils.IdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+class GroupMessageBucketTests {
+    private static final long GROUP_ID = 42;
+    private static final long SPAN_MINUTES = 60;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final IdGenerator idGenerator = new IdGenerator(0);
+
+    @BeforeEach
+    void clear() {
+        mongoTemplate.dropCollection(GroupMessageBucket.class);
+    }
+
+    @Test
+    void fullBucketsAreLeftAloneAndANewOneIsStarted() {
+        List<Message> sent = send(25, 10);
+
+        List<GroupMessageBucket> buckets = mongoTemplate.findAll(GroupMessageBucket.class);
+        assertTrue(buckets.size() >= 3, buckets.size() + " buckets");
+        for (GroupMessageBucket bucket : buckets) {
+            assertTrue(bucket.getCount() <= 10, "bucket holds " + bucket.getCount() + " messages");
+            assertEquals(bucket.getCount(), bucket.getMessages().size());
+        }
+        assertEquals(sent.size(), buckets.stream().mapToInt(GroupMessageBucket::getCount).sum());
+    }
+
+    @Test
+    void latestPageReadsOnlyTheTailOfEachBucket() {
+        List<Message> sent = send(25, 10);
+
+        List<Message> read = new ArrayList<>();
+        for (GroupMessageBucket bucket : mongoTemplate.find(GroupService.bucketQuery(GROUP_ID, null, null, SPAN_MINUTES, 3), GroupMessageBucket.class)) {
+            assertTrue(bucket.getMessages().size() <= 3, "bucket returned " + bucket.getMessages().size() + " messages");
+            read.addAll(bucket.getMessages());
+        }
+
+        List<Message> page = GroupService.page(read, false, 3);
+        assertEquals(sent.subList(22, 25).stream().map(Message::getId).toList(), page.stream().map(Message::getId).toList());
+    }
+
+    @Test
+    void pagesBeforeAnIdSeeEveryBucketOfTheSpan() {
+        List<Message> sent = send(25, 10);
+        long before = sent.get(15).getId();
+
+        List<Message> read = new ArrayList<>();
+        for (GroupMessageBucket bucket : mongoTemplate.find(GroupService.bucketQuery(GROUP_ID, before, null, SPAN_MINUTES, 5), GroupMessageBucket.class)) {
+            read.addAll(GroupService.matching(bucket, before, null));
+        }
+
+        List<Message> page = GroupService.page(read, false, 5);
+        assertEquals(sent.subList(10, 15).stream().map(Message::getId).toList(), page.stream().map(Message::getId).toList());
+    }
+
+    // sends messages the way GroupService.sendMessage stores them
+    private List<Message> send(int count, int maxMessages) {
+        List<Message> sent = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Message message = new Message(idGenerator.nextId(), "member" + (i % 3), "group", "message " + i, null, null, LocalDateTime.now());
+            long bucketStart = GroupService.bucketStart(message.getId(), SPAN_MINUTES);
+            mongoTemplate.upsert(GroupService.openBucket(GROUP_ID, bucketStart, maxMessages), GroupService.append(message), GroupMessageBucket.class);
+            sent.add(message);
+        }
+        return sent;
+    }
+}
@@ -0,0 +1,51 @@
+package edu.project.howudoin.service;
+
+import edu.project.howudoin.model.Group;
+import edu.project.howudoin.model.GroupMetadata;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupMetadataCacheTests {
+
+    private final GroupMetadataCache cache = new GroupMetadataCache(100, 60, new SimpleMeterRegistry());
+
+    @Test
+    void keepsSnapshotsReadAtTheCurrentVersion() {
+        cache.put(GroupMetadata.of(group(1, "alice", "bob"), cache.version()));
+
+        GroupMetadata cached = cache.get(1);
+        assertNotNull(cached);
+        assertTrue(cached.isMember("bob"));
+        assertFalse(cached.isMember("carol"));
+    }
+
+    @Test
+    void dropsSnapshotsReadBeforeAnInvalidation() {
+        long version = cache.version();
+        Group loaded = group(1, "alice", "bob");
+
+        // carol is added while the old member list is being loaded
+        cache.invalidate(1);
+        cache.put(GroupMetadata.of(loaded, version));
+
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void invalidateRemovesTheEntry() {
+        cache.put(GroupMetadata.of(group(1, "alice"), cache.version()));
+        cache.invalidate(1);
+
+        assertNull(cache.get(1));
+    }
+
+    private static Group group(long id, String... members) {
+        return new Group(id, "group " + id, members[0], new ArrayList<>(List.of(members)), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,157 @@
+package edu.project.howudoin.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.project.howudoin.model.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MessagePushServiceTests {
+
+    private MessagePushService pushService;
+
+    @BeforeEach
+    void setUp() {
+        pushService = new MessagePushService();
+        ReflectionTestUtils.setField(pushService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(pushService, "sendTimeLimit", 1000);
+        ReflectionTestUtils.setField(pushService, "bufferSizeLimit", 65536);
+        ReflectionTestUtils.setField(pushService, "maxSessions", 10);
+        ReflectionTestUtils.setField(pushService, "pushThreads", 1);
+        ReflectionTestUtils.setField(pushService, "pushQueueSize", 1);
+        pushService.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pushService.destroy();
+    }
+
+    @Test
+    void pushesDirectMessagesToBothSides() throws Exception {
+        WebSocketSession alice = session("a");
+        WebSocketSession bob = session("b");
+        WebSocketSession carol = session("c");
+        pushService.register("alice", alice);
+        pushService.register("bob", bob);
+        pushService.register("carol", carol);
+
+        pushService.pushDirect(message("alice", "bob"));
+        drain();
+
+        verify(alice).sendMessage(any(TextMessage.class));
+        verify(bob).sendMessage(any(TextMessage.class));
+        verify(carol, never()).sendMessage(any());
+    }
+
+    @Test
+    void unregisteredSessionsGetNothing() throws Exception {
+        WebSocketSession alice = session("a");
+        pushService.register("alice", alice);
+        pushService.unregister("alice", alice);
+
+        pushService.pushDirect(message("alice", "bob"));
+        drain();
+
+        verify(alice, never()).sendMessage(any());
+        assertEquals(0, pushService.getSessionCount());
+    }
+
+    @Test
+    void refusesSessionsOverTheLimit() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(pushService.register("user" + i, session("s" + i)));
+        }
+        assertFalse(pushService.register("late", session("late")));
+        assertEquals(10, pushService.getSessionCount());
+    }
+
+    @Test
+    void sessionRegisteredWhileTheLastOneCloses_stillGetsPushes() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            WebSocketSession closing = session("old" + i);
+            WebSocketSession opening = session("new" + i);
+            pushService.register("alice", closing);
+
+            CyclicBarrier start = new CyclicBarrier(2);
+            Thread unregister = new Thread(() -> {
+                await(start);
+                pushService.unregister("alice", closing);
+            });
+            unregister.start();
+            await(start);
+            pushService.register("alice", opening);
+            unregister.join();
+
+            pushService.pushDirect(message("alice", "bob"));
+            verify(opening, timeout(1000)).sendMessage(any(TextMessage.class));
+            pushService.unregister("alice", opening);
+        }
+        assertEquals(0, pushService.getSessionCount());
+    }
+
+    @Test
+    void slowSessionDoesNotHoldUpTheSender() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        WebSocketSession slow = session("slow");
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(slow).sendMessage(any());
+        pushService.register("alice", slow);
+
+        // one push in flight, one queued, the third is dropped; none of them waits for the socket
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+            pushService.pushDirect(message("alice", "bob"));
+            verify(slow, timeout(1000)).sendMessage(any());
+            pushService.pushDirect(message("alice", "bob"));
+            pushService.pushDirect(message("alice", "bob"));
+        });
+        assertEquals(1, pushService.getDroppedPushes());
+
+        release.countDown();
+        drain();
+        verify(slow, times(2)).sendMessage(any(TextMessage.class));
+    }
+
+    // waits until every queued push has been sent
+    private void drain() throws InterruptedException {
+        pushService.destroy();
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(pushService, "executor");
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    private static Message message(String sender, String receiver) {
+        return new Message(1L, sender, receiver, "hello", MessageService.conversationId(sender, receiver),
+                List.of(sender, receiver), null);
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package edu.project.howudoin.service;
+
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.repository.MessageRepository;
+import edu.project.howudoin.utils.IdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageServiceTests {
+
+    @Mock
+    private MessageRepository messageRepository;
+    @Mock
+    private UserService userService;
+    @Spy
+    private IdGenerator idGenerator = new IdGenerator(0);
+    @Mock
+    private MessagePushService messagePushService;
+    @Mock
+    private MessageMetrics messageMetrics;
+    @Mock
+    private ConversationService conversationService;
+    @Mock
+    private SearchService searchService;
+    @Mock
+    private ChangeCounterService changeCounterService;
+    @Mock
+    private ChangeLogService changeLogService;
+    @Mock
+    private MongoTemplate mongoTemplate;
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @InjectMocks
+    private MessageService messageService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Message.class))).thenReturn(bulkOperations);
+        lenient().when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(userService.getFriendsAmong(eq(Set.of("alice")), anyCollection())).thenReturn(Map.of("alice", Set.of("bob", "carol")));
+        lenient().when(userService.getExistingNicknames(anyCollection())).thenReturn(Set.of("dave"));
+    }
+
+    @Test
+    void resultsFollowTheRequestOrderWithAcceptedAndRejectedMixed() {
+        List<Message> messages = List.of(
+                message(null, "bob"),
+                message("alice", "dave"),
+                message(null, "nobody"),
+                message("alice", "carol"));
+
+        List<Map<String, Object>> results = messageService.sendMessages("alice", messages);
+
+        assertEquals(List.of(1, 0, 0, 1), results.stream().map(result -> result.get("status")).toList());
+        assertEquals("Message could not be sent. You are not friend with this receiver.", results.get(1).get("message"));
+        assertEquals("There is no user that named nobody.", results.get(2).get("message"));
+        assertEquals(messages.get(0).getId(), results.get(0).get("id"));
+        assertEquals(0L, results.get(1).get("id"));
+        assertTrue((long) results.get(3).get("id") > (long) results.get(0).get("id"));
+        verify(bulkOperations).insert(List.of(messages.get(0), messages.get(3)));
+    }
+
+    @Test
+    void messagesNamingAnotherSenderAreRejected() {
+        Message impostor = message("bob", "carol");
+        Message own = message(null, "carol");
+
+        List<Map<String, Object>> results = messageService.sendMessages("alice", List.of(impostor, own));
+
+        assertEquals(0, results.get(0).get("status"));
+        assertEquals("Message could not be sent. You can only send messages as yourself.", results.get(0).get("message"));
+        assertEquals(1, results.get(1).get("status"));
+        assertEquals("alice", own.getSender());
+        verify(bulkOperations).insert(List.of(own));
+        verify(messagePushService, never()).pushDirect(impostor);
+    }
+
+    private static Message message(String sender, String receiver) {
+        Message message = new Message();
+        message.setSender(sender);
+        message.setReceiver(receiver);
+        message.setContent("hello");
+        return message;
+    }
+}
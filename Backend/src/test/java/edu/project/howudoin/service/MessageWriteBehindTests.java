@@ -0,0 +1,72 @@
+package edu.project.howudoin.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.project.howudoin.model.Message;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MessageWriteBehindTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shutdownDoesNotWaitForAnUnreachableDatabase_andTheMessageIsWrittenAtTheNextStart() throws Exception {
+        MongoTemplate down = mock(MongoTemplate.class);
+        when(down.bulkOps(any(BulkOperations.BulkMode.class), eq(Message.class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        MessageWriteBehind writeBehind = writeBehind(down);
+        writeBehind.accept(message(42L));
+        verify(down, timeout(1000).atLeastOnce()).bulkOps(any(BulkOperations.BulkMode.class), eq(Message.class));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(8), writeBehind::destroy);
+
+        MongoTemplate up = mock(MongoTemplate.class);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(up.bulkOps(any(BulkOperations.BulkMode.class), eq(Message.class))).thenReturn(bulk);
+        MessageWriteBehind restarted = writeBehind(up);
+        restarted.destroy();
+
+        verify(bulk).replaceOne(any(Query.class), argThat(message -> ((Message) message).getId() == 42L),
+                any(FindAndReplaceOptions.class));
+        verify(bulk).execute();
+    }
+
+    private MessageWriteBehind writeBehind(MongoTemplate mongoTemplate) {
+        MessageWriteBehind writeBehind = new MessageWriteBehind();
+        ReflectionTestUtils.setField(writeBehind, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(writeBehind, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(writeBehind, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writeBehind, "searchService", mock(SearchService.class));
+        ReflectionTestUtils.setField(writeBehind, "changeCounterService", mock(ChangeCounterService.class));
+        ReflectionTestUtils.setField(writeBehind, "changeLogService", mock(ChangeLogService.class));
+        ReflectionTestUtils.setField(writeBehind, "logDirectory", directory.toString());
+        ReflectionTestUtils.setField(writeBehind, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(writeBehind, "batchSize", 10);
+        ReflectionTestUtils.setField(writeBehind, "maxDelayMillis", 5L);
+        ReflectionTestUtils.setField(writeBehind, "queueCapacity", 10);
+        ReflectionTestUtils.setField(writeBehind, "shutdownTimeoutMillis", 1000L);
+        writeBehind.afterPropertiesSet();
+        return writeBehind;
+    }
+
+    private static Message message(long id) {
+        return new Message(id, "alice", "bob", "hello", MessageService.conversationId("alice", "bob"),
+                List.of("alice", "bob"), null);
+    }
+}
@@ -0,0 +1,93 @@
+package edu.project.howudoin.service;
+
+import edu.project.howudoin.model.Friendship;
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.model.User;
+import edu.project.howudoin.repository.reactive.ReactiveFriendshipRepository;
+import edu.project.howudoin.repository.reactive.ReactiveMessageRepository;
+import edu.project.howudoin.repository.reactive.ReactiveUserRepository;
+import edu.project.howudoin.utils.IdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveMessageServiceTests {
+
+    @Mock
+    private ReactiveMessageRepository messageRepository;
+    @Mock
+    private ReactiveUserRepository userRepository;
+    @Mock
+    private ReactiveFriendshipRepository friendshipRepository;
+    @Spy
+    private IdGenerator idGenerator = new IdGenerator(0);
+    @Mock
+    private MessagePushService messagePushService;
+    @Mock
+    private MessageMetrics messageMetrics;
+
+    @InjectMocks
+    private ReactiveMessageService messageService;
+
+    @BeforeEach
+    void setUp() {
+        when(friendshipRepository.findFriendsAmong(eq("alice"), anyCollection()))
+                .thenReturn(Flux.just(new Friendship(null, "alice", "bob"), new Friendship(null, "alice", "carol")));
+        lenient().when(userRepository.findNicknamesByNicknameIn(anyCollection())).thenReturn(Flux.just(user("dave")));
+        lenient().when(messageRepository.insert(anyIterable()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<Iterable<Message>>getArgument(0)));
+    }
+
+    @Test
+    void resultsMatchTheBlockingBatch() {
+        Message impostor = message("bob", "carol");
+        List<Message> messages = List.of(message(null, "bob"), message("alice", "dave"), message(null, "nobody"), impostor);
+
+        List<Map<String, Object>> results = messageService.sendMessages("alice", messages).block();
+
+        assertEquals(List.of(1, 0, 0, 0), results.stream().map(result -> result.get("status")).toList());
+        assertEquals(messages.get(0).getId(), results.get(0).get("id"));
+        assertEquals("Message could not be sent. You are not friend with this receiver.", results.get(1).get("message"));
+        assertEquals("There is no user that named nobody.", results.get(2).get("message"));
+        assertEquals("Message could not be sent. You can only send messages as yourself.", results.get(3).get("message"));
+        assertEquals("alice", messages.get(0).getSender());
+        verify(messageRepository).insert(List.of(messages.get(0)));
+        verify(messagePushService).pushDirect(messages.get(0));
+        verify(messagePushService, never()).pushDirect(impostor);
+    }
+
+    @Test
+    void nothingIsInsertedWhenEveryMessageIsRejected() {
+        List<Map<String, Object>> results = messageService.sendMessages("alice", List.of(message("bob", "carol"))).block();
+
+        assertEquals(0, results.get(0).get("status"));
+        verify(messageRepository, never()).insert(anyIterable());
+    }
+
+    private static Message message(String sender, String receiver) {
+        Message message = new Message();
+        message.setSender(sender);
+        message.setReceiver(receiver);
+        message.setContent("hello");
+        return message;
+    }
+
+    private static User user(String nickname) {
+        User user = new User();
+        user.setNickname(nickname);
+        return user;
+    }
+}
@@ -0,0 +1,88 @@
+package edu.project.howudoin.service;
+
+import edu.project.howudoin.model.GroupMetadata;
+import edu.project.howudoin.model.Message;
+import edu.project.howudoin.model.SearchEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@DataMongoTest
+@Import(SearchService.class)
+class SearchServiceTests {
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @MockBean
+    private UserService userService;
+
+    @BeforeEach
+    void indexMessages() {
+        mongoTemplate.remove(SearchEntry.class).all();
+        when(userService.getGroups("alice")).thenReturn(List.of(7L));
+        when(userService.getGroups("bob")).thenReturn(List.of());
+        when(userService.getGroups("carol")).thenReturn(List.of());
+        when(userService.getGroups("dave")).thenReturn(List.of(7L));
+
+        searchService.indexDirectMessages(List.of(message(1, "alice", "bob", "hello from the lake")));
+        GroupMetadata group = new GroupMetadata(7, "hikers", "alice", Set.of("alice", "dave"), LocalDateTime.now(), 0);
+        searchService.indexGroupMessage(group, message(2, "dave", "hikers", "hello from the mountain"));
+    }
+
+    @Test
+    void textIndexHasTheScopeAsASuffix() {
+        List<IndexInfo> indexes = mongoTemplate.indexOps(SearchEntry.class).getIndexInfo();
+        IndexInfo text = indexes.stream()
+                .filter(index -> index.getIndexFields().stream().anyMatch(IndexField::isText))
+                .findFirst().orElseThrow();
+        assertTrue(text.getIndexFields().stream().anyMatch(field -> field.getKey().equals("scope")));
+    }
+
+    @Test
+    void bothSidesFindADirectMessage() {
+        assertEquals(List.of(1L), ids(searchService.search("bob", "lake", 0, null)));
+        assertEquals(List.of(1L), ids(searchService.search("alice", "lake", 0, null)));
+    }
+
+    @Test
+    void resultsAreLimitedToTheCallersConversations() {
+        assertEquals(Set.of(1L, 2L), Set.copyOf(ids(searchService.search("alice", "hello", 0, null))));
+        assertEquals(List.of(1L), ids(searchService.search("bob", "hello", 0, null)));
+        assertEquals(List.of(2L), ids(searchService.search("dave", "hello", 0, null)));
+        assertTrue(searchService.search("carol", "hello", 0, null).isEmpty());
+    }
+
+    @Test
+    void indexingAgainDoesNotDuplicate() {
+        searchService.indexDirectMessages(List.of(message(1, "alice", "bob", "hello from the lake")));
+
+        assertEquals(List.of(1L), ids(searchService.search("bob", "lake", 0, null)));
+        assertEquals(3, mongoTemplate.count(new Query(), SearchEntry.class));
+    }
+
+    private static Message message(long id, String sender, String receiver, String content) {
+        return new Message(id, sender, receiver, content, null, List.of(sender, receiver), LocalDateTime.now());
+    }
+
+    private static List<Long> ids(List<SearchEntry> entries) {
+        return entries.stream().map(SearchEntry::getId).toList();
+    }
+}
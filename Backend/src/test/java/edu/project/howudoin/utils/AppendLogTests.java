@@ -0,0 +1,122 @@
+package edu.project.howudoin.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppendLogTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void unreleasedRecordsAreReplayedInOrderAfterRestart() {
+        AppendLog log = new AppendLog(directory, 4096, false);
+        for (int i = 0; i < 100; i++) {
+            log.append(("message " + i).getBytes(StandardCharsets.UTF_8));
+        }
+        log.close();
+
+        List<String> replayed = new ArrayList<>();
+        AppendLog restarted = new AppendLog(directory, 4096, false);
+        int count = restarted.replay(7, batch -> batch.forEach(record -> replayed.add(new String(record, StandardCharsets.UTF_8))));
+        restarted.close();
+
+        assertEquals(100, count);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("message " + i, replayed.get(i));
+        }
+        // replayed segments are gone, a second restart has nothing to replay
+        assertEquals(0, new AppendLog(directory, 4096, false).replay(7, batch -> fail("replayed twice")));
+    }
+
+    @Test
+    void fullSegmentsAreDeletedOnceReleased() throws IOException {
+        AppendLog log = new AppendLog(directory, 256, false);
+        List<Long> segments = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            segments.add(log.append(new byte[32]));
+        }
+        assertTrue(segmentFiles() > 1);
+
+        for (long segment : segments) {
+            log.release(segment, 1);
+        }
+        // only the segment still being written remains
+        assertEquals(1, segmentFiles());
+        log.close();
+    }
+
+    @Test
+    void cleanCloseAfterEveryReleaseLeavesNothingToReplay() throws IOException {
+        AppendLog log = new AppendLog(directory, 4096, false);
+        for (int i = 0; i < 10; i++) {
+            log.release(log.append(("message " + i).getBytes(StandardCharsets.UTF_8)), 1);
+        }
+        log.close();
+
+        assertEquals(0, segmentFiles());
+        assertEquals(0, new AppendLog(directory, 4096, false).replay(7, batch -> fail("released records replayed")));
+    }
+
+    @Test
+    void closeKeepsTheActiveSegmentWhileRecordsArePending() {
+        AppendLog log = new AppendLog(directory, 4096, false);
+        log.release(log.append(new byte[16]), 1);
+        log.append(new byte[16]);
+        log.close();
+
+        assertTrue(new AppendLog(directory, 4096, false).replay(7, batch -> {}) > 0);
+    }
+
+    @Test
+    void releasesRacingWithRollsAreNotLost() throws Exception {
+        AppendLog log = new AppendLog(directory, 128, false);
+        BlockingQueue<Long> appended = new LinkedBlockingQueue<>();
+        int records = 20_000;
+
+        Thread releaser = new Thread(() -> {
+            try {
+                for (int i = 0; i < records; i++) {
+                    log.release(appended.take(), 1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        releaser.start();
+        for (int i = 0; i < records; i++) {
+            appended.put(log.append(new byte[32]));
+        }
+        releaser.join();
+
+        // every full segment was released and deleted, only the one still being written remains
+        assertEquals(1, segmentFiles());
+        log.close();
+        assertEquals(0, segmentFiles());
+    }
+
+    @Test
+    void recordsLargerThanASegmentAreRejected() {
+        AppendLog log = new AppendLog(directory, 256, false);
+        assertThrows(IllegalArgumentException.class, () -> log.append(new byte[512]));
+        log.close();
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
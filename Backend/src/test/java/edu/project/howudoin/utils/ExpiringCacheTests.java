@@ -0,0 +1,71 @@
+package edu.project.howudoin.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringCacheTests {
+
+    @Test
+    void returnsValuesUntilTheyExpire() throws InterruptedException {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+        cache.put("token", "alice", System.currentTimeMillis() + 100);
+
+        assertEquals("alice", cache.get("token"));
+        Thread.sleep(200);
+        assertNull(cache.get("token"));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void valuesPastTheirExpiryAreNeverReturned() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+        cache.put("token", "alice", System.currentTimeMillis() - 1);
+
+        assertNull(cache.get("token"));
+    }
+
+    @Test
+    void putReplacesTheExpiryOfAnEntry() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+        cache.put("token", "alice", System.currentTimeMillis() - 1);
+        cache.put("token", "bob", System.currentTimeMillis() + 60_000);
+
+        assertEquals("bob", cache.get("token"));
+    }
+
+    @Test
+    void staysWithinItsMaximumSize() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(100);
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, i, expiresAt);
+        }
+        cache.cleanUp();
+
+        assertTrue(cache.size() <= 100, "size " + cache.size());
+        assertTrue(cache.evictionCount() >= 9_900, "evictions " + cache.evictionCount());
+    }
+
+    @Test
+    void invalidateAndClearRemoveEntries() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        cache.put("a", "1", expiresAt);
+        cache.put("b", "2", expiresAt);
+
+        cache.invalidate("a");
+        assertNull(cache.get("a"));
+        assertEquals("2", cache.get("b"));
+
+        cache.clear();
+        assertNull(cache.get("b"));
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    void rejectsANonPositiveSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ExpiringCache<>(0));
+    }
+}
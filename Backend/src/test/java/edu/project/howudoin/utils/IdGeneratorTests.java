@@ -0,0 +1,70 @@
+package edu.project.howudoin.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdGeneratorTests {
+
+    @Test
+    void idsOfOneNodeAreStrictlyIncreasing() {
+        IdGenerator generator = new IdGenerator(1);
+        long previous = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void concurrentCallersNeverGetTheSameId() throws InterruptedException {
+        IdGenerator generator = new IdGenerator(1);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(80_000, ids.size());
+    }
+
+    @Test
+    void differentNodesNeverCollide() {
+        IdGenerator node1 = new IdGenerator(1);
+        IdGenerator node2 = new IdGenerator(2);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(ids.add(node1.nextId()));
+            assertTrue(ids.add(node2.nextId()));
+        }
+    }
+
+    @Test
+    void idsCarryTheirTimestamp() {
+        long before = System.currentTimeMillis();
+        long id = new IdGenerator(0).nextId();
+        long after = System.currentTimeMillis();
+
+        assertTrue(IdGenerator.timestampOf(id) >= before);
+        assertTrue(IdGenerator.timestampOf(id) <= after + 1);
+        assertTrue(IdGenerator.lowestIdAt(before) <= id);
+    }
+
+    @Test
+    void rejectsOutOfRangeNodeIds() {
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(1024));
+    }
+}